@@ -0,0 +1,76 @@
+package com.webcodein.lrpsp.benchmark;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+
+/**
+ * Offloads blocking calls (legacy blocking clients, file or JDBC access) away from the calling thread.
+ * <p>
+ * The data access paths of the application are fully reactive, so nothing in it blocks; this helper
+ * lets {@link BlockingOffloadBenchmark} measure what offloading a blocking call would cost. Depending
+ * on {@link Mode}, blocking calls run on Reactor's bounded elastic pool, whose size caps how many calls
+ * can block at once, or on one virtual thread per call, which parks instead of holding a platform thread
+ * while blocked.
+ * <p>
+ * Virtual threads only help when the blocking code does not pin its carrier thread, e.g. by blocking
+ * inside a {@code synchronized} block or in native code.
+ */
+final class BlockingOffload {
+
+    /**
+     * Where blocking calls are executed.
+     */
+    enum Mode {
+        BOUNDED_ELASTIC, // Reactor's shared pool of at most 10 threads per core
+        VIRTUAL_THREADS  // A new virtual thread per call
+    }
+
+    private final Mode mode;
+    private final Scheduler scheduler;
+
+    /**
+     * Creates the offload for the given execution mode.
+     *
+     * @param mode where blocking calls are executed
+     */
+    BlockingOffload(Mode mode) {
+        this.mode = mode;
+        this.scheduler = switch (mode) {
+            case BOUNDED_ELASTIC -> Schedulers.boundedElastic();
+            case VIRTUAL_THREADS -> Schedulers.fromExecutorService(Executors.newVirtualThreadPerTaskExecutor(), "blocking-virtual");
+        };
+    }
+
+    /**
+     * Runs a blocking call on the configured scheduler.
+     *
+     * @param call the blocking call
+     * @param <T>  the result type
+     * @return Mono emitting the call's result, or empty if it returned null
+     */
+    <T> Mono<T> call(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(scheduler);
+    }
+
+    /**
+     * Returns the scheduler blocking calls run on, for use with {@code subscribeOn}/{@code publishOn}.
+     *
+     * @return the blocking scheduler
+     */
+    Scheduler scheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Releases the virtual-thread executor; the shared bounded elastic pool is left to Reactor.
+     */
+    void dispose() {
+        if (mode == Mode.VIRTUAL_THREADS) {
+            scheduler.dispose();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.webcodein.lrpsp.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@code concurrency} simultaneous calls with {@code latencyMillis} of I/O latency each:
+ * a non-blocking reactive call, and a blocking call offloaded by {@link BlockingOffload} in either mode.
+ * The bounded elastic pool caps the number of calls blocking at once; virtual threads do not.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BlockingOffloadBenchmark {
+
+    @Param({"100", "1000"})
+    private int concurrency;
+
+    @Param({"5"})
+    private int latencyMillis;
+
+    private BlockingOffload boundedElastic;
+    private BlockingOffload virtualThreads;
+
+    @Setup
+    public void setUp() {
+        boundedElastic = new BlockingOffload(BlockingOffload.Mode.BOUNDED_ELASTIC);
+        virtualThreads = new BlockingOffload(BlockingOffload.Mode.VIRTUAL_THREADS);
+    }
+
+    @TearDown
+    public void tearDown() {
+        virtualThreads.dispose();
+    }
+
+    /**
+     * The latency awaited without blocking any thread, as the reactive driver does.
+     */
+    @Benchmark
+    public Long reactive() {
+        return Flux.range(0, concurrency)
+                .flatMap(i -> Mono.delay(Duration.ofMillis(latencyMillis)), concurrency)
+                .count()
+                .block();
+    }
+
+    /**
+     * The latency awaited by blocking a thread of the bounded elastic pool.
+     */
+    @Benchmark
+    public Long boundedElastic() {
+        return offload(boundedElastic);
+    }
+
+    /**
+     * The latency awaited by blocking one virtual thread per call.
+     */
+    @Benchmark
+    public Long virtualThreads() {
+        return offload(virtualThreads);
+    }
+
+    private Long offload(BlockingOffload offload) {
+        return Flux.range(0, concurrency)
+                .flatMap(i -> offload.call(() -> {
+                    Thread.sleep(latencyMillis); // Stands in for a blocking repository call
+                    return i;
+                }), concurrency)
+                .count()
+                .block();
+    }
+}
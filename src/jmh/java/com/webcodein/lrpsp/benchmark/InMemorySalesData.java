@@ -0,0 +1,105 @@
+package com.webcodein.lrpsp.benchmark;
+
+import com.webcodein.lrpsp.model.Customer;
+import com.webcodein.lrpsp.model.CustomerSalesSummary;
+import com.webcodein.lrpsp.model.CustomerSalesTotal;
+import com.webcodein.lrpsp.model.Order;
+import org.mockito.Mockito;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Deterministic in-memory dataset shaped like the seeded database, with a stubbed
+ * {@link ReactiveMongoTemplate} serving it.
+ * <p>
+ * The stub answers every query from pre-built lists and maps, so benchmarks measure the
+ * application-side Reactor work only, not MongoDB.
+ */
+final class InMemorySalesData {
+
+    final List<Customer> customers;
+    final List<Order> orders;
+    final Map<String, List<Order>> ordersByCustomer;
+    final List<CustomerSalesSummary> summaries; // What the server-side aggregation would return
+    final ReactiveMongoTemplate template;
+
+    /**
+     * Generates the dataset with 1–3 orders per customer, as the seeder does.
+     *
+     * @param customerCount the number of customers
+     */
+    InMemorySalesData(int customerCount) {
+        Random random = new Random(42); // Fixed seed so every run benchmarks the same data
+        customers = new ArrayList<>(customerCount);
+        orders = new ArrayList<>(customerCount * 2);
+        ordersByCustomer = new HashMap<>(customerCount * 2);
+        summaries = new ArrayList<>(customerCount);
+
+        for (int i = 0; i < customerCount; i++) {
+            Customer customer = new Customer("Customer_" + i, "Job_" + (i % 50));
+            customer.setId(randomId(random));
+            customers.add(customer);
+
+            List<Order> customerOrders = new ArrayList<>(3);
+            double total = 0;
+            double discount = 0;
+            int orderCount = 1 + random.nextInt(3);
+            for (int j = 0; j < orderCount; j++) {
+                double orderTotal = 100 + random.nextDouble() * 900;
+                Order order = new Order(customer.getId(), orderTotal, orderTotal * random.nextDouble() * 0.2);
+                order.setId(randomId(random));
+                customerOrders.add(order);
+                total += orderTotal;
+                discount += order.getDiscount();
+            }
+            orders.addAll(customerOrders);
+            ordersByCustomer.put(customer.getId(), customerOrders);
+            summaries.add(new CustomerSalesSummary(customer.getId(), customer.getName(), total, discount, orderCount));
+        }
+
+        template = stubTemplate();
+    }
+
+    /**
+     * Generates a random string key, as assigned by the default key strategy.
+     *
+     * @param random the dataset's seeded generator
+     * @return the key
+     */
+    private static String randomId(Random random) {
+        return new UUID(random.nextLong(), random.nextLong()).toString();
+    }
+
+    /**
+     * Builds a stub-only template answering the queries issued by the summary code paths.
+     *
+     * @return the stubbed template
+     */
+    private ReactiveMongoTemplate stubTemplate() {
+        ReactiveMongoTemplate stub = Mockito.mock(ReactiveMongoTemplate.class, Mockito.withSettings().stubOnly());
+
+        Mockito.when(stub.getCollectionName(Customer.class)).thenReturn("customer");
+        Mockito.when(stub.getCollectionName(Order.class)).thenReturn("order");
+        Mockito.when(stub.getCollectionName(CustomerSalesTotal.class)).thenReturn("customerSalesTotal");
+        Mockito.when(stub.findAll(Customer.class)).thenAnswer(invocation -> Flux.fromIterable(customers));
+        Mockito.when(stub.find(Mockito.any(Query.class), Mockito.eq(Order.class))).thenAnswer(invocation -> {
+            Query query = invocation.getArgument(0);
+            String customerId = query.getQueryObject().getString("customerId");
+            return Flux.fromIterable(customerId == null ? orders : ordersByCustomer.getOrDefault(customerId, List.of()));
+        });
+        Mockito.when(stub.find(Mockito.any(Query.class), Mockito.eq(Customer.class)))
+                .thenAnswer(invocation -> Flux.fromIterable(customers));
+        Mockito.when(stub.aggregate(Mockito.any(Aggregation.class), Mockito.anyString(), Mockito.eq(CustomerSalesSummary.class)))
+                .thenAnswer(invocation -> Flux.fromIterable(summaries));
+        return stub;
+    }
+}
@@ -0,0 +1,107 @@
+package com.webcodein.lrpsp.benchmark;
+
+import com.webcodein.lrpsp.ReactiveTutorial;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the Reactor operator chains demonstrated by {@link ReactiveTutorial} and
+ * {@code BackPressureTutorial}, scaled up to {@code size} elements and without the artificial delays.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class OperatorChainBenchmark {
+
+    @Param({"10000"})
+    private int size;
+
+    @Param({"1", "16", "256"})
+    private int bufferSize;
+
+    private ReactiveTutorial tutorial;
+
+    @Setup
+    public void setUp() {
+        tutorial = new ReactiveTutorial();
+    }
+
+    // --- ReactiveTutorial examples as written ---
+
+    @Benchmark
+    public List<String> tutorialMapUppercase() {
+        return tutorial.uppercaseProgrammingLanguages().collectList().block();
+    }
+
+    @Benchmark
+    public List<String> tutorialFlatMapUppercase() {
+        return tutorial.uppercaseSampleStringsUsingFlatMap().collectList().block();
+    }
+
+    @Benchmark
+    public Long tutorialConcatRanges() {
+        return tutorial.concatIntegerRanges().count().block();
+    }
+
+    @Benchmark
+    public Long tutorialMergeRanges() {
+        return tutorial.mergeIntegerRanges().count().block();
+    }
+
+    // --- Scaled operator comparisons ---
+
+    @Benchmark
+    public Long flatMap() {
+        return Flux.range(0, size).flatMap(i -> Mono.just(i * 2)).count().block();
+    }
+
+    @Benchmark
+    public Long concatMap() {
+        return Flux.range(0, size).concatMap(i -> Mono.just(i * 2)).count().block();
+    }
+
+    @Benchmark
+    public Long buffer() {
+        return Flux.range(0, size).buffer(bufferSize).count().block();
+    }
+
+    @Benchmark
+    public Map<Integer, Integer> collectMap() {
+        return Flux.range(0, size).collectMap(i -> i, i -> i * i).block();
+    }
+
+    // --- BackPressureTutorial strategies with a consumer on another thread ---
+
+    @Benchmark
+    public Long backpressureDrop() {
+        return Flux.range(0, size).onBackpressureDrop().publishOn(Schedulers.single(), bufferSize).count().block();
+    }
+
+    @Benchmark
+    public Long backpressureBuffer() {
+        return Flux.range(0, size).onBackpressureBuffer().publishOn(Schedulers.single(), bufferSize).count().block();
+    }
+
+    @Benchmark
+    public Long backpressureBufferDropLatest() {
+        return Flux.range(0, size)
+                .onBackpressureBuffer(50, BufferOverflowStrategy.DROP_LATEST)
+                .publishOn(Schedulers.single(), bufferSize)
+                .count()
+                .block();
+    }
+}
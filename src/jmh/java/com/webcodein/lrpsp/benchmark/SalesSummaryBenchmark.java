@@ -0,0 +1,117 @@
+package com.webcodein.lrpsp.benchmark;
+
+import com.webcodein.lrpsp.model.Customer;
+import com.webcodein.lrpsp.model.Order;
+import com.webcodein.lrpsp.service.KeyStrategy;
+import com.webcodein.lrpsp.service.SalesAccumulator;
+import com.webcodein.lrpsp.service.SalesMetric;
+import com.webcodein.lrpsp.service.SalesSummaryService;
+import com.webcodein.lrpsp.service.SummarySource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the application-side cost of the {@code /sales/summary} strategies against a stubbed template:
+ * the original N+1 fan-out (one order query per customer), the single aggregation cursor, a cached result,
+ * and the in-process replay of every order, summed either into boxed map values or into a {@link SalesAccumulator}.
+ * Run with {@code -prof gc} to compare the allocation rates of the two replays.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SalesSummaryBenchmark {
+
+    @Param({"1000", "10000"})
+    private int customers;
+
+    private ReactiveMongoTemplate template;
+    private SalesSummaryService salesSummaryService;
+    private Mono<Map<String, Double>> cachedSummary;
+    private Flux<Order> orders;
+
+    @Setup
+    public void setUp() {
+        InMemorySalesData data = new InMemorySalesData(customers);
+        template = data.template;
+        orders = Flux.fromIterable(data.orders);
+        salesSummaryService = new SalesSummaryService(template, new KeyStrategy(KeyStrategy.Type.STRING), 256, 8, 1000,
+                new SimpleMeterRegistry());
+        cachedSummary = salesSummaryService.summarizeByName(SummarySource.AGGREGATE, SalesMetric.TOTAL).cache();
+        cachedSummary.block(); // Populate the cache before measuring
+    }
+
+    /**
+     * The summary as originally implemented: every customer triggers its own order query.
+     */
+    @Benchmark
+    public Map<String, Double> nPlusOne() {
+        return template.findAll(Customer.class)
+                .flatMap(customer -> Mono.zip(
+                        Mono.just(customer),
+                        template.find(Query.query(Criteria.where("customerId").is(customer.getId())), Order.class)
+                                .map(Order::getTotal)
+                                .reduce(0d, Double::sum)))
+                .collectMap(tuple -> tuple.getT1().getName(), Tuple2::getT2)
+                .block();
+    }
+
+    /**
+     * The summary read from a single aggregation cursor.
+     */
+    @Benchmark
+    public Map<String, Double> aggregation() {
+        return salesSummaryService.summarizeByName(SummarySource.AGGREGATE, SalesMetric.TOTAL).block();
+    }
+
+    /**
+     * A summary that was already computed and is replayed from a cached Mono.
+     */
+    @Benchmark
+    public Map<String, Double> cached() {
+        return cachedSummary.block();
+    }
+
+    /**
+     * The summary replayed from every order and summed in-process into primitive arrays.
+     */
+    @Benchmark
+    public Map<String, Double> replay() {
+        return salesSummaryService.summarizeByName(SummarySource.REPLAY, SalesMetric.TOTAL).block();
+    }
+
+    /**
+     * Sums every order into boxed per-customer map values, allocating on each order.
+     */
+    @Benchmark
+    public Map<String, Double> boxedAccumulation() {
+        return orders.reduceWith(HashMap<String, Double>::new, (totals, order) -> {
+            totals.merge(order.getCustomerId(), order.getTotal(), Double::sum);
+            return totals;
+        }).block();
+    }
+
+    /**
+     * Sums every order into a {@link SalesAccumulator}, without allocating per order.
+     */
+    @Benchmark
+    public SalesAccumulator primitiveAccumulation() {
+        return orders.reduceWith(SalesAccumulator::new, SalesAccumulator::add).block();
+    }
+}
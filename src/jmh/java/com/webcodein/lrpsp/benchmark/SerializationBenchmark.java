@@ -0,0 +1,73 @@
+package com.webcodein.lrpsp.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.module.paramnames.ParameterNamesModule;
+import com.webcodein.lrpsp.model.Customer;
+import com.webcodein.lrpsp.model.Order;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures JSON encoding and decoding of {@link Customer} and {@link Order}, single documents and
+ * a page of 1,000, with an ObjectMapper configured like the one WebFlux uses.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SerializationBenchmark {
+
+    private ObjectMapper objectMapper;
+    private Customer customer;
+    private Order order;
+    private List<Order> orderPage;
+    private byte[] customerJson;
+    private byte[] orderJson;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        // Customer has no default constructor; Spring Boot registers the parameter names module for it
+        objectMapper = JsonMapper.builder().addModule(new ParameterNamesModule()).build();
+        InMemorySalesData data = new InMemorySalesData(1000);
+        customer = data.customers.get(0);
+        order = data.orders.get(0);
+        orderPage = data.orders.subList(0, 1000);
+        customerJson = objectMapper.writeValueAsBytes(customer);
+        orderJson = objectMapper.writeValueAsBytes(order);
+    }
+
+    @Benchmark
+    public byte[] writeCustomer() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(customer);
+    }
+
+    @Benchmark
+    public byte[] writeOrder() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(order);
+    }
+
+    @Benchmark
+    public byte[] writeOrderPage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(orderPage);
+    }
+
+    @Benchmark
+    public Customer readCustomer() throws IOException {
+        return objectMapper.readValue(customerJson, Customer.class);
+    }
+
+    @Benchmark
+    public Order readOrder() throws IOException {
+        return objectMapper.readValue(orderJson, Order.class);
+    }
+}
@@ -0,0 +1,275 @@
+package com.webcodein.lrpsp.loadtest;
+
+import com.webcodein.lrpsp.LearnReactiveProgrammingSpringBootApplication;
+import com.webcodein.lrpsp.model.Customer;
+import com.webcodein.lrpsp.model.Order;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.mongo.transitions.Mongod;
+import de.flapdoodle.embed.mongo.transitions.RunningMongodProcess;
+import de.flapdoodle.reverse.TransitionWalker;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+/**
+ * End-to-end load generator for the application's main endpoints.
+ * <p>
+ * Unless a {@code target} is given, the harness starts an embedded MongoDB and the application on a
+ * random port, with seeding disabled. It then creates {@code preload} customers and runs one stage per
+ * entry of {@code users}: that many concurrent virtual users loop over a weighted mix of
+ * {@code /customer/create}, {@code /order/create}, {@code /customer/find-by-id} and {@code /sales/summary}
+ * for {@code duration}. Throughput and latency percentiles per stage and operation are printed and
+ * written to {@code out/<timestamp>/results.csv} and {@code results.json}.
+ * <p>
+ * Arguments are {@code key=value} pairs, e.g.
+ * {@code users=8,32,128 duration=30s preload=1000 target=http://localhost:8080 out=target/loadtest}.
+ */
+public final class LoadTestHarness {
+
+    /**
+     * Operation mix of every virtual user, with relative weights.
+     */
+    private enum Operation {
+        CUSTOMER_CREATE(10, LoadTestHarness::createCustomer),
+        ORDER_CREATE(40, LoadTestHarness::createOrder),
+        CUSTOMER_FIND_BY_ID(45, LoadTestHarness::findCustomer),
+        SALES_SUMMARY(5, LoadTestHarness::salesSummary);
+
+        private final int weight;
+        private final Function<LoadTestHarness, WebClient.RequestHeadersSpec<?>> request;
+
+        Operation(int weight, Function<LoadTestHarness, WebClient.RequestHeadersSpec<?>> request) {
+            this.weight = weight;
+            this.request = request;
+        }
+    }
+
+    private static final int TOTAL_WEIGHT = Arrays.stream(Operation.values()).mapToInt(operation -> operation.weight).sum();
+
+    private final WebClient webClient;
+    private final String[] customerIds; // Customers created before the stages, targeted by lookups and orders
+
+    private LoadTestHarness(WebClient webClient, int preload) {
+        this.webClient = webClient;
+        this.customerIds = Flux.range(0, preload)
+                .flatMap(i -> webClient.post().uri("/customer/create")
+                        .bodyValue(new Customer("LoadTest_" + i, "Job_" + (i % 50)))
+                        .retrieve()
+                        .bodyToMono(Customer.class), 32)
+                .map(Customer::getId)
+                .collectList()
+                .block()
+                .toArray(String[]::new);
+    }
+
+    /**
+     * Runs the load test.
+     *
+     * @param args {@code key=value} settings, separate or space-separated in a single argument
+     * @throws IllegalArgumentException if fewer than one customer is to be preloaded
+     * @throws Exception                if the application cannot be started or the report cannot be written
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> settings = new HashMap<>(Map.of(
+                "users", "8,32,128",
+                "duration", "30s",
+                "preload", "1000",
+                "out", "target/loadtest"));
+        for (String arg : String.join(" ", args).trim().split("\\s+")) { // Maven passes all settings as one argument
+            if (arg.isEmpty()) {
+                continue;
+            }
+            String[] pair = arg.split("=", 2);
+            settings.put(pair[0], pair.length > 1 ? pair[1] : "");
+        }
+        int[] stages = Arrays.stream(settings.get("users").split(",")).mapToInt(Integer::parseInt).toArray();
+        Duration duration = Duration.parse("PT" + settings.get("duration").toUpperCase());
+        int preload = Integer.parseInt(settings.get("preload"));
+        if (preload < 1) {
+            throw new IllegalArgumentException("Expected preload >= 1, since lookups and orders target preloaded customers");
+        }
+
+        TransitionWalker.ReachedState<RunningMongodProcess> mongod = null;
+        ConfigurableApplicationContext application = null;
+        try {
+            String target = settings.get("target");
+            if (target == null || target.isBlank()) {
+                mongod = Mongod.instance().start(Version.Main.V7_0);
+                application = startApplication(mongod.current());
+                target = "http://localhost:" + ((WebServerApplicationContext) application).getWebServer().getPort();
+            }
+
+            int maxUsers = Arrays.stream(stages).max().orElse(1);
+            WebClient webClient = WebClient.builder()
+                    .baseUrl(target)
+                    .clientConnector(new ReactorClientHttpConnector(HttpClient.create(
+                            ConnectionProvider.builder("load-test").maxConnections(maxUsers).pendingAcquireMaxCount(-1).build())))
+                    .build();
+            LoadTestHarness harness = new LoadTestHarness(webClient, preload);
+
+            Map<String, Object> recordedSettings = new LinkedHashMap<>();
+            recordedSettings.put("target", target);
+            recordedSettings.put("users", stages);
+            recordedSettings.put("duration", duration.toString());
+            recordedSettings.put("preload", preload);
+            LoadTestReport report = new LoadTestReport(recordedSettings);
+            for (int users : stages) {
+                System.out.printf("Running %d users for %s%n", users, duration);
+                harness.runStage(users, duration).forEach(report::add);
+            }
+
+            Path out = Path.of(settings.get("out"), LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")));
+            report.write(out);
+            report.print();
+            System.out.println("Results written to " + out.toAbsolutePath());
+        } finally {
+            if (application != null) {
+                application.close();
+            }
+            if (mongod != null) {
+                mongod.close();
+            }
+        }
+    }
+
+    /**
+     * Starts the application against the embedded MongoDB, on a random port and without seeding.
+     *
+     * @param mongod the running embedded MongoDB
+     * @return the started application
+     */
+    private static ConfigurableApplicationContext startApplication(RunningMongodProcess mongod) {
+        String uri = "mongodb://" + mongod.getServerAddress().getHost() + ":" + mongod.getServerAddress().getPort()
+                + "/webcodein-load-test";
+        return SpringApplication.run(LearnReactiveProgrammingSpringBootApplication.class,
+                "--server.port=0",
+                "--spring.data.mongodb.uri=" + uri,
+                "--seed.enabled=false");
+    }
+
+    /**
+     * Runs one stage: {@code users} virtual users looping over the operation mix until the stage ends.
+     *
+     * @param users    the number of concurrent users
+     * @param duration the stage duration
+     * @return one report row per operation
+     */
+    private List<LoadTestReport.Row> runStage(int users, Duration duration) {
+        Map<Operation, OperationStats> stats = new LinkedHashMap<>();
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, new OperationStats());
+        }
+        long start = System.nanoTime();
+        long deadline = start + duration.toNanos();
+
+        Flux.range(0, users)
+                .flatMap(user -> Mono.defer(() -> execute(nextOperation(), stats))
+                        .repeat(() -> System.nanoTime() < deadline), users)
+                .blockLast();
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        return stats.entrySet().stream()
+                .map(entry -> entry.getValue().toRow(users, entry.getKey().name().toLowerCase().replace('_', '-'), seconds))
+                .toList();
+    }
+
+    /**
+     * Sends one request, reads its whole response and records the outcome.
+     *
+     * @param operation the operation to perform
+     * @param stats     the statistics of the current stage
+     * @return Mono completing once the response has been read
+     */
+    private Mono<Void> execute(Operation operation, Map<Operation, OperationStats> stats) {
+        OperationStats operationStats = stats.get(operation);
+        long start = System.nanoTime();
+        return operation.request.apply(this)
+                .exchangeToMono(response -> response.bodyToFlux(DataBuffer.class)
+                        .doOnNext(DataBufferUtils::release)
+                        .then(Mono.just(response.statusCode())))
+                .doOnNext(status -> record(status, System.nanoTime() - start, operationStats))
+                .onErrorResume(error -> {
+                    operationStats.error();
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    /**
+     * Records the outcome of a request from its response status.
+     *
+     * @param status         the response status
+     * @param latencyNanos   the time until the whole response was read
+     * @param operationStats the statistics of the operation
+     */
+    private static void record(HttpStatusCode status, long latencyNanos, OperationStats operationStats) {
+        if (status.value() == 429 || status.value() == 503) {
+            operationStats.rejected();
+        } else if (status.isError()) {
+            operationStats.error();
+        } else {
+            operationStats.success(latencyNanos);
+        }
+    }
+
+    /**
+     * Picks the next operation according to the weights of the mix.
+     *
+     * @return the operation to perform
+     */
+    private static Operation nextOperation() {
+        int pick = ThreadLocalRandom.current().nextInt(TOTAL_WEIGHT);
+        for (Operation operation : Operation.values()) {
+            pick -= operation.weight;
+            if (pick < 0) {
+                return operation;
+            }
+        }
+        throw new IllegalStateException("Unreachable");
+    }
+
+    private String randomCustomerId() {
+        return customerIds[ThreadLocalRandom.current().nextInt(customerIds.length)];
+    }
+
+    private WebClient.RequestHeadersSpec<?> createCustomer() {
+        int suffix = ThreadLocalRandom.current().nextInt(1_000_000);
+        return webClient.post().uri("/customer/create")
+                .bodyValue(new Customer("LoadTest_" + suffix, "Job_" + (suffix % 50)));
+    }
+
+    private WebClient.RequestHeadersSpec<?> createOrder() {
+        double total = 100 + ThreadLocalRandom.current().nextDouble() * 900;
+        return webClient.post().uri("/order/create")
+                .bodyValue(new Order(randomCustomerId(), total, total * 0.1));
+    }
+
+    private WebClient.RequestHeadersSpec<?> findCustomer() {
+        return webClient.get().uri("/customer/find-by-id?customerId={id}", randomCustomerId());
+    }
+
+    private WebClient.RequestHeadersSpec<?> salesSummary() {
+        return webClient.get().uri("/sales/summary");
+    }
+}
@@ -0,0 +1,93 @@
+package com.webcodein.lrpsp.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Results of a load test run, written as CSV and JSON and printed as a table.
+ */
+final class LoadTestReport {
+
+    private static final String HEADER = "users,operation,requests,errors,rejected,throughput_rps,p50_ms,p90_ms,p99_ms,p999_ms,max_ms";
+
+    /**
+     * Throughput and latency percentiles of one operation during one stage.
+     *
+     * @param users      the number of concurrent users
+     * @param operation  the operation name
+     * @param requests   the number of successful requests
+     * @param errors     the number of failed requests
+     * @param rejected   the number of requests shed with 429 or 503
+     * @param throughput the successful requests per second
+     * @param p50        the median latency in milliseconds
+     * @param p90        the 90th percentile latency in milliseconds
+     * @param p99        the 99th percentile latency in milliseconds
+     * @param p999       the 99.9th percentile latency in milliseconds
+     * @param max        the maximum latency in milliseconds
+     */
+    record Row(int users, String operation, long requests, long errors, long rejected, double throughput,
+               double p50, double p90, double p99, double p999, double max) {
+
+        private String toCsv() {
+            return String.format(Locale.ROOT, "%d,%s,%d,%d,%d,%.1f,%.3f,%.3f,%.3f,%.3f,%.3f",
+                    users, operation, requests, errors, rejected, throughput, p50, p90, p99, p999, max);
+        }
+    }
+
+    private final Map<String, Object> settings; // Settings of the run, recorded alongside the results
+    private final List<Row> rows = new ArrayList<>();
+
+    /**
+     * Creates an empty report.
+     *
+     * @param settings the settings of the run
+     */
+    LoadTestReport(Map<String, Object> settings) {
+        this.settings = settings;
+    }
+
+    /**
+     * Adds the results of one operation during one stage.
+     *
+     * @param row the results
+     */
+    void add(Row row) {
+        rows.add(row);
+    }
+
+    /**
+     * Writes {@code results.csv} and {@code results.json} to the given directory.
+     *
+     * @param directory the output directory, created if missing
+     * @throws IOException if a file cannot be written
+     */
+    void write(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        List<String> lines = new ArrayList<>(rows.size() + 1);
+        lines.add(HEADER);
+        rows.forEach(row -> lines.add(row.toCsv()));
+        Files.write(directory.resolve("results.csv"), lines);
+        new ObjectMapper().writerWithDefaultPrettyPrinter()
+                .writeValue(directory.resolve("results.json").toFile(), Map.of("settings", settings, "results", rows));
+    }
+
+    /**
+     * Prints the results as a table.
+     */
+    void print() {
+        System.out.printf("%6s %-22s %9s %7s %8s %10s %9s %9s %9s %9s %9s%n",
+                "users", "operation", "requests", "errors", "rejected", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Row row : rows) {
+            System.out.printf(Locale.ROOT, "%6d %-22s %9d %7d %8d %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    row.users(), row.operation(), row.requests(), row.errors(), row.rejected(), row.throughput(),
+                    row.p50(), row.p90(), row.p99(), row.p999(), row.max());
+        }
+    }
+}
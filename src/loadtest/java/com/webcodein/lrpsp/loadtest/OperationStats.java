@@ -0,0 +1,66 @@
+package com.webcodein.lrpsp.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency and outcome counts of one operation during one load stage.
+ * <p>
+ * Latencies are recorded in microseconds into an auto-resizing HDR histogram, which keeps percentiles
+ * accurate to three significant digits without storing individual samples. Safe for concurrent use.
+ */
+final class OperationStats {
+
+    private final Histogram latencies = new ConcurrentHistogram(3);
+    private final LongAdder errors = new LongAdder();    // Failed requests, excluding rejections
+    private final LongAdder rejected = new LongAdder();  // Requests shed with 429 or 503
+
+    /**
+     * Records a successful request.
+     *
+     * @param latencyNanos the request latency
+     */
+    void success(long latencyNanos) {
+        latencies.recordValue(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+    }
+
+    /**
+     * Records a request shed by the admission controller.
+     */
+    void rejected() {
+        rejected.increment();
+    }
+
+    /**
+     * Records a failed request.
+     */
+    void error() {
+        errors.increment();
+    }
+
+    /**
+     * Summarizes the stage as a report row.
+     *
+     * @param stage     the number of concurrent users of the stage
+     * @param operation the operation name
+     * @param seconds   the stage duration in seconds
+     * @return the report row
+     */
+    LoadTestReport.Row toRow(int stage, String operation, double seconds) {
+        long count = latencies.getTotalCount();
+        return new LoadTestReport.Row(stage, operation, count, errors.sum(), rejected.sum(),
+                count / seconds,
+                millis(latencies.getValueAtPercentile(50)),
+                millis(latencies.getValueAtPercentile(90)),
+                millis(latencies.getValueAtPercentile(99)),
+                millis(latencies.getValueAtPercentile(99.9)),
+                millis(latencies.getMaxValue()));
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000d;
+    }
+}
@@ -1,5 +1,7 @@
 package com.webcodein.lrpsp;
 
+import com.webcodein.lrpsp.service.AdaptiveBackpressure;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import reactor.core.publisher.BufferOverflowStrategy;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -13,6 +15,7 @@ import java.time.Duration;
  * - Controlled emission to avoid backpressure
  * - Uncontrolled fast emission causing overflow
  * - Backpressure strategies: drop, buffer, and drop latest
+ * - An adaptive strategy switching between buffering, sampling and dropping
  */
 public class BackPressureTutorial {
 
@@ -78,6 +81,21 @@ public class BackPressureTutorial {
                 .doOnNext(item -> System.out.println("Element kept by consumer: " + item));
     }
 
+    /**
+     * Emits items rapidly through the adaptive backpressure operator.
+     * Items are buffered while the consumer keeps up, sampled once 50 items are waiting,
+     * and dropped once 100 items are waiting, until the consumer is back to 10 waiting items.
+     *
+     * @return Flux<Long> using the adaptive backpressure strategy
+     */
+    private Flux<Long> adaptiveBackpressureEmitter() {
+        AdaptiveBackpressure adaptiveBackpressure = new AdaptiveBackpressure(new SimpleMeterRegistry(), true, 10, 50, 100, 4);
+        return Flux.interval(Duration.ofMillis(1))
+                .transform(adaptiveBackpressure.operator("tutorial"))
+                .concatMap(x -> Mono.delay(Duration.ofMillis(100)).thenReturn(x))
+                .doOnNext(item -> System.out.println("Element kept by consumer: " + item));
+    }
+
     /**
      * Executes various Flux-based backpressure tests and prints separators for clarity.
      */
@@ -107,5 +125,10 @@ public class BackPressureTutorial {
         System.out.println("\n========== Test 5: Buffer with DROP_LATEST Strategy ==========");
         tutorial.bufferWithDropLatestStrategyEmitter().blockLast();
         System.out.println("========== End of Test 5 ==========\n");
+
+        System.out.println("\n========== Test 6: Adaptive Backpressure ==========");
+        // Uncomment to run
+        // tutorial.adaptiveBackpressureEmitter().blockLast();
+        System.out.println("========== End of Test 6 ==========\n");
     }
 }
\ No newline at end of file
@@ -2,7 +2,7 @@ package com.webcodein.lrpsp;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
+import org.springframework.data.mongodb.repository.config.EnableReactiveMongoRepositories;
 
 /**
  * Main entry point for the Learn Reactive Programming Spring Boot application.
@@ -10,8 +10,8 @@ import org.springframework.data.mongodb.repository.config.EnableMongoRepositorie
  * This class bootstraps the application using Spring Boot's auto-configuration and component scanning features.
  */
 @SpringBootApplication // Enables auto-configuration, component scanning, and Spring Boot setup
-@EnableMongoRepositories(basePackages = "com.webcodein.lrpsp.repository")
-// Explicitly enables scanning of MongoDB repositories in the specified package
+@EnableReactiveMongoRepositories(basePackages = "com.webcodein.lrpsp.repository")
+// Explicitly enables scanning of reactive MongoDB repositories in the specified package
 public class LearnReactiveProgrammingSpringBootApplication {
 
     /**
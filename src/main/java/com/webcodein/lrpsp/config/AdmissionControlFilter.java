@@ -0,0 +1,379 @@
+package com.webcodein.lrpsp.config;
+
+import com.webcodein.lrpsp.service.SingleFlight;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.result.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPattern;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.util.context.Context;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Admission controller guarding every application route with a rate limit and a concurrency limit.
+ * <p>
+ * Each route (controller mapping pattern) gets its own limiter, so an expensive route exhausting its
+ * limits never takes capacity away from the cheap ones. Routes belong to one of three groups that share their settings:
+ * <ul>
+ *     <li>{@code summary}: the full sales summary, the top customers and the totals rebuild, with a small concurrency limit</li>
+ *     <li>{@code stream}: long-running streaming responses, with a fixed concurrency limit</li>
+ *     <li>{@code default}: every other route</li>
+ * </ul>
+ * Requests over the rate limit are rejected right away with {@code 429 Too Many Requests}, requests over
+ * the concurrency limit with {@code 503 Service Unavailable}, both with a {@code Retry-After} header.
+ * For the {@code summary} and {@code default} groups the concurrency limit adapts to the observed latency
+ * (additive increase, multiplicative decrease): a request slower than the group's latency target shrinks
+ * the limit by 10%, a fast request completing while the limit was saturated grows it by one, up to the
+ * configured maximum. The limit shrinks at most once per round of requests: slow requests admitted before
+ * the last decrease were sent under the old limit and do not shrink it again. The concurrency limit is
+ * checked before the rate limit, so requests rejected with {@code 503} do not use up the rate.
+ * <p>
+ * The sales summary and top customers routes coalesce identical concurrent requests (see {@link SingleFlight}).
+ * On these routes only a request starting a new computation takes a slot of the concurrency limit, for as
+ * long as the computation runs, and yields a latency sample; requests joining a computation in flight
+ * only count against the rate limit, which is therefore checked first on these routes. If a new
+ * computation is over the limit, every request sharing it is rejected with {@code 503}.
+ * <p>
+ * Paths that match no controller route share a single limiter; actuator endpoints are never limited.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class AdmissionControlFilter implements WebFilter {
+
+    private static final Set<String> SUMMARY_ROUTES = Set.of("/sales/summary", "/sales/top", "/sales/totals/rebuild");
+    private static final Set<String> COALESCED_ROUTES = Set.of("/sales/summary", "/sales/top"); // Served through SingleFlight
+    private static final Set<String> STREAM_ROUTES = Set.of("/sales/summary/stream", "/customers/stream");
+    private static final String OTHER_ROUTES = "other"; // Limiter key shared by paths matching no controller route
+    private static final double DECREASE_RATIO = 0.9; // Multiplicative decrease applied to the limit of a slow route
+
+    /**
+     * Shared settings of a group of routes.
+     *
+     * @param name           the group name
+     * @param maxConcurrency the maximum (and initial) number of requests in flight per route
+     * @param ratePerSecond  the sustained number of requests admitted per second per route
+     * @param latencyTarget  the latency above which the concurrency limit shrinks; zero keeps it fixed
+     */
+    private record Group(String name, int maxConcurrency, double ratePerSecond, Duration latencyTarget) {
+    }
+
+    private final MeterRegistry meterRegistry;
+    private final ObjectProvider<RequestMappingHandlerMapping> handlerMapping;
+    private final boolean enabled;       // Whether requests are limited at all
+    private final Duration burst;        // How much unused rate a route may accumulate
+    private final Group summary;
+    private final Group stream;
+    private final Group fallback;
+    private final Map<String, RouteLimiter> limiters = new ConcurrentHashMap<>(); // Limiters by route pattern
+    private volatile List<PathPattern> routes; // Controller route patterns, resolved on first request
+
+    /**
+     * Constructor-based injection of the meter registry and the admission settings.
+     *
+     * @param meterRegistry         the registry receiving the admission metrics
+     * @param handlerMapping        the mapping of the application's controller routes
+     * @param enabled               whether requests are limited at all
+     * @param burst                 how much unused rate a route may accumulate, as a duration at the sustained rate
+     * @param summaryConcurrency    the maximum number of sales summaries in flight
+     * @param summaryRate           the number of sales summaries admitted per second
+     * @param summaryLatencyTarget  the sales summary latency above which its concurrency limit shrinks
+     * @param streamConcurrency     the number of streams open per streaming route
+     * @param streamRate            the number of streams opened per second per streaming route
+     * @param defaultConcurrency    the maximum number of requests in flight per other route
+     * @param defaultRate           the number of requests admitted per second per other route
+     * @param defaultLatencyTarget  the latency above which the concurrency limit of other routes shrinks
+     */
+    public AdmissionControlFilter(MeterRegistry meterRegistry,
+                                  @Qualifier("requestMappingHandlerMapping") ObjectProvider<RequestMappingHandlerMapping> handlerMapping,
+                                  @Value("${admission.enabled:true}") boolean enabled,
+                                  @Value("${admission.burst:1s}") Duration burst,
+                                  @Value("${admission.summary.max-concurrency:32}") int summaryConcurrency,
+                                  @Value("${admission.summary.rate:50}") double summaryRate,
+                                  @Value("${admission.summary.latency-target:2s}") Duration summaryLatencyTarget,
+                                  @Value("${admission.stream.max-concurrency:8}") int streamConcurrency,
+                                  @Value("${admission.stream.rate:20}") double streamRate,
+                                  @Value("${admission.default.max-concurrency:512}") int defaultConcurrency,
+                                  @Value("${admission.default.rate:10000}") double defaultRate,
+                                  @Value("${admission.default.latency-target:250ms}") Duration defaultLatencyTarget) {
+        this.meterRegistry = meterRegistry;
+        this.handlerMapping = handlerMapping;
+        this.enabled = enabled;
+        this.burst = burst;
+        this.summary = new Group("summary", summaryConcurrency, summaryRate, summaryLatencyTarget);
+        this.stream = new Group("stream", streamConcurrency, streamRate, Duration.ZERO);
+        this.fallback = new Group("default", defaultConcurrency, defaultRate, defaultLatencyTarget);
+    }
+
+    /**
+     * Admits, or rejects, a request on its route's limiter.
+     *
+     * @param exchange the current exchange
+     * @param chain    the rest of the filter chain
+     * @return Mono completing when the request was handled or rejected
+     */
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        PathContainer path = exchange.getRequest().getPath().pathWithinApplication();
+        if (!enabled || path.value().startsWith("/actuator")) {
+            return chain.filter(exchange);
+        }
+        String route = routeOf(path);
+        RouteLimiter limiter = limiters.computeIfAbsent(route, this::newLimiter);
+
+        if (COALESCED_ROUTES.contains(route)) {
+            if (!limiter.tryAcquireRate()) {
+                return reject(exchange, limiter, HttpStatus.TOO_MANY_REQUESTS, "rate");
+            }
+            // The concurrency limit is only applied if this request starts a new computation
+            return chain.filter(exchange)
+                    .contextWrite(Context.of(SingleFlight.ADMISSION, limiter))
+                    .onErrorResume(ConcurrencyRejection.class,
+                            rejection -> reject(exchange, limiter, HttpStatus.SERVICE_UNAVAILABLE, "concurrency"));
+        }
+        if (!limiter.tryAcquireConcurrency()) {
+            return reject(exchange, limiter, HttpStatus.SERVICE_UNAVAILABLE, "concurrency");
+        }
+        if (!limiter.tryAcquireRate()) {
+            limiter.inFlight.decrementAndGet(); // Give the slot back without a latency sample
+            return reject(exchange, limiter, HttpStatus.TOO_MANY_REQUESTS, "rate");
+        }
+        long start = System.nanoTime();
+        return chain.filter(exchange)
+                .doFinally(signal -> limiter.release(start, System.nanoTime(), signal));
+    }
+
+    /**
+     * Returns the current limit and number of requests in flight of every route seen so far.
+     *
+     * @return a sorted snapshot keyed by route pattern, with {@code limit} and {@code inFlight} per route
+     */
+    public Map<String, Map<String, Integer>> status() {
+        Map<String, Map<String, Integer>> status = new TreeMap<>();
+        limiters.forEach((path, limiter) -> status.put(path,
+                Map.of("limit", limiter.limit.get(), "inFlight", limiter.inFlight.get())));
+        return status;
+    }
+
+    /**
+     * Answers a rejected request without invoking its handler.
+     *
+     * @param exchange the current exchange
+     * @param limiter  the limiter that rejected the request
+     * @param status   the rejection status
+     * @param reason   the rejection reason, used as meter tag
+     * @return Mono completing once the response is written
+     */
+    private Mono<Void> reject(ServerWebExchange exchange, RouteLimiter limiter, HttpStatus status, String reason) {
+        (reason.equals("rate") ? limiter.rateRejections : limiter.concurrencyRejections).increment();
+        exchange.getResponse().setStatusCode(status);
+        exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER, "1");
+        return exchange.getResponse().setComplete();
+    }
+
+    /**
+     * Resolves the controller route a path belongs to.
+     *
+     * @param path the request path
+     * @return the matching route pattern, or {@code other} when no controller route matches
+     */
+    private String routeOf(PathContainer path) {
+        List<PathPattern> patterns = routes;
+        if (patterns == null) {
+            patterns = handlerMapping.getObject().getHandlerMethods().keySet().stream()
+                    .flatMap(mapping -> mapping.getPatternsCondition().getPatterns().stream())
+                    .toList();
+            routes = patterns;
+        }
+        for (PathPattern pattern : patterns) {
+            if (pattern.matches(path)) {
+                return pattern.getPatternString();
+            }
+        }
+        return OTHER_ROUTES;
+    }
+
+    /**
+     * Creates the limiter of a route with the settings of its group.
+     *
+     * @param route the route pattern
+     * @return the new limiter
+     */
+    private RouteLimiter newLimiter(String route) {
+        Group group = SUMMARY_ROUTES.contains(route) ? summary
+                : STREAM_ROUTES.contains(route) ? stream
+                : fallback;
+        return new RouteLimiter(route, group);
+    }
+
+    /**
+     * Signals that a coalesced computation was over its route's concurrency limit.
+     * <p>
+     * Carries no stack trace, since it is raised on every rejection and is always handled by the filter.
+     */
+    private static final class ConcurrencyRejection extends RuntimeException {
+
+        private ConcurrencyRejection() {
+            super("Concurrency limit reached", null, false, false);
+        }
+    }
+
+    /**
+     * Rate and concurrency limiter of a single route.
+     * <p>
+     * The rate limit is a token bucket implemented as a generic cell rate algorithm: a single
+     * theoretical arrival time is advanced with compare-and-set, so admission is lock-free. As a
+     * {@link SingleFlight.Admission}, the limiter holds a concurrency slot while a coalesced computation runs.
+     */
+    private final class RouteLimiter implements SingleFlight.Admission {
+
+        private final Group group;
+        private final long intervalNanos;       // Time it takes the bucket to refill one token
+        private final long burstNanos;          // Refill time of a full bucket
+        private final AtomicLong theoreticalArrival = new AtomicLong(System.nanoTime());
+        private final AtomicInteger limit;      // Current concurrency limit
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicLong lastDecrease = new AtomicLong(System.nanoTime()); // Time the limit last shrank
+        private final Counter rateRejections;
+        private final Counter concurrencyRejections;
+
+        /**
+         * Creates the limiter of a route and registers its meters.
+         *
+         * @param path  the route pattern
+         * @param group the settings of the route's group
+         */
+        private RouteLimiter(String path, Group group) {
+            this.group = group;
+            this.intervalNanos = (long) (1_000_000_000L / group.ratePerSecond());
+            this.burstNanos = Math.max(intervalNanos, burst.toNanos());
+            this.limit = new AtomicInteger(group.maxConcurrency());
+
+            Gauge.builder("admission.limit", limit, AtomicInteger::get)
+                    .description("Current concurrency limit of a route")
+                    .tags("route", path, "group", group.name())
+                    .register(meterRegistry);
+            Gauge.builder("admission.in_flight", inFlight, AtomicInteger::get)
+                    .description("Requests in flight on a route")
+                    .tags("route", path, "group", group.name())
+                    .register(meterRegistry);
+            this.rateRejections = rejections(path, "rate");
+            this.concurrencyRejections = rejections(path, "concurrency");
+        }
+
+        /**
+         * Takes a token from the route's bucket.
+         *
+         * @return true if the request is within the rate limit
+         */
+        private boolean tryAcquireRate() {
+            long now = System.nanoTime();
+            while (true) {
+                long current = theoreticalArrival.get();
+                long next = Math.max(current, now) + intervalNanos;
+                if (next - now > burstNanos) {
+                    return false;
+                }
+                if (theoreticalArrival.compareAndSet(current, next)) {
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * Runs a coalesced computation in a slot of the route's concurrency limit.
+         *
+         * @param execution the computation about to be shared
+         * @param <T>       the result type
+         * @return the computation, or a Mono failing with a {@link ConcurrencyRejection} if no slot is free
+         */
+        @Override
+        public <T> Mono<T> guard(Mono<T> execution) {
+            return Mono.defer(() -> {
+                if (!tryAcquireConcurrency()) {
+                    return Mono.error(new ConcurrencyRejection());
+                }
+                long start = System.nanoTime();
+                return execution.doFinally(signal -> release(start, System.nanoTime(), signal));
+            });
+        }
+
+        /**
+         * Takes a slot from the route's concurrency limit.
+         *
+         * @return true if a slot was free
+         */
+        private boolean tryAcquireConcurrency() {
+            while (true) {
+                int current = inFlight.get();
+                if (current >= limit.get()) {
+                    return false;
+                }
+                if (inFlight.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * Frees a slot and adapts the concurrency limit to the observed latency.
+         * <p>
+         * Cancelled requests free their slot but are not used as a latency sample. A slow request only
+         * shrinks the limit if it was admitted after the last decrease, so a burst of slow requests
+         * admitted under the same limit shrinks it once instead of once per request.
+         *
+         * @param startNanos the time the request was admitted
+         * @param endNanos   the time the request terminated
+         * @param signal     how the request terminated
+         */
+        private void release(long startNanos, long endNanos, SignalType signal) {
+            int saturation = inFlight.getAndDecrement();
+            if (group.latencyTarget().isZero() || signal == SignalType.CANCEL) {
+                return;
+            }
+            if (endNanos - startNanos > group.latencyTarget().toNanos()) {
+                long last = lastDecrease.get();
+                if (startNanos - last > 0 && lastDecrease.compareAndSet(last, endNanos)) {
+                    limit.updateAndGet(current -> Math.max(1, (int) (current * DECREASE_RATIO)));
+                }
+            } else if (saturation >= limit.get()) {
+                limit.updateAndGet(current -> Math.min(group.maxConcurrency(), current + 1));
+            }
+        }
+
+        /**
+         * Registers the rejection counter of the route with the given reason.
+         *
+         * @param path   the route pattern
+         * @param reason the rejection reason tag value
+         * @return the registered counter
+         */
+        private Counter rejections(String path, String reason) {
+            return Counter.builder("admission.rejected")
+                    .description("Requests rejected by the admission controller")
+                    .tags("route", path, "group", group.name(), "reason", reason)
+                    .register(meterRegistry);
+        }
+    }
+}
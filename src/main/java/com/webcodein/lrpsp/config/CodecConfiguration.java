@@ -0,0 +1,51 @@
+package com.webcodein.lrpsp.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Configuration class registering the compact binary wire format offered next to JSON.
+ * <p>
+ * Service-to-service clients can ask for Jackson Smile, a binary encoding of the JSON data model,
+ * with {@code Accept: application/x-jackson-smile} (or {@code application/stream+x-jackson-smile}
+ * on streaming endpoints) and skip JSON text parsing altogether. Browsers and other clients keep
+ * receiving JSON.
+ */
+@Configuration
+public class CodecConfiguration {
+
+    /**
+     * Media type of a single Smile-encoded value.
+     */
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+
+    /**
+     * Media type of a stream of Smile-encoded values, written one after another.
+     */
+    public static final String APPLICATION_STREAM_SMILE_VALUE = "application/stream+x-jackson-smile";
+
+    /**
+     * Registers Smile codecs that share the application's Jackson settings, so binary and JSON
+     * responses carry exactly the same fields (e.g. omitted nulls and projected-away fields).
+     *
+     * @param objectMapperBuilder the builder holding the application's Jackson settings
+     * @return a customizer replacing the default Smile encoder and decoder
+     */
+    @Bean
+    public CodecCustomizer smileCodecCustomizer(Jackson2ObjectMapperBuilder objectMapperBuilder) {
+        ObjectMapper smileMapper = objectMapperBuilder.factory(new SmileFactory()).build();
+        MediaType smile = MediaType.parseMediaType(APPLICATION_SMILE_VALUE);
+        MediaType smileSuffix = new MediaType("application", "*+x-jackson-smile");
+        return configurer -> {
+            configurer.defaultCodecs().jackson2SmileEncoder(new Jackson2SmileEncoder(smileMapper, smile, smileSuffix));
+            configurer.defaultCodecs().jackson2SmileDecoder(new Jackson2SmileDecoder(smileMapper, smile, smileSuffix));
+        };
+    }
+}
@@ -2,75 +2,267 @@ package com.webcodein.lrpsp.config;
 
 import com.webcodein.lrpsp.model.Customer;
 import com.webcodein.lrpsp.model.Order;
-import com.webcodein.lrpsp.repository.CustomerRepository;
-import com.webcodein.lrpsp.repository.OrderRepository;
+import com.webcodein.lrpsp.service.KeyStrategy;
+import com.webcodein.lrpsp.service.SalesRollupStore;
+import com.webcodein.lrpsp.service.SalesSketchStore;
+import com.webcodein.lrpsp.service.SalesTotalsStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Configuration class for seeding initial data into the MongoDB database.
- * This class runs once on application startup and populates 100,000 customers
- * along with 1–3 orders per customer (randomized), only if the database is empty.
+ * This class runs once on application startup and populates a configurable number of customers
+ * (100,000 by default) along with 1–3 orders per customer (randomized), only if the database is empty.
+ * <p>
+ * Seeding is fully reactive: batches are generated on the parallel scheduler and written with
+ * unordered bulk inserts, several batches at a time. The boot thread only subscribes to the pipeline.
+ * Progress is published as the {@code seed.customers.inserted} and {@code seed.orders.inserted} counters,
+ * the {@code seed.progress} gauge (fraction of batches written) and the {@code seed.duration} timer.
  */
 @Configuration
 public class DataSeeder {
 
+    private static final Logger log = LoggerFactory.getLogger(DataSeeder.class);
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+    private final SalesTotalsStore salesTotalsStore;
+    private final SalesRollupStore salesRollupStore;
+    private final SalesSketchStore salesSketchStore;
+    private final KeyStrategy keyStrategy;
+    private final boolean enabled;        // Whether seeding runs at all
+    private final int customerCount;      // Number of customers to create
+    private final int batchSize;          // Number of customers generated and written per batch
+    private final int concurrency;        // Number of batches written concurrently
+    private final AtomicInteger batchesWritten = new AtomicInteger(); // Batches written by the current run
+    private final AtomicInteger batchesTotal = new AtomicInteger();   // Batches of the current run, 0 before it starts
+
+    private final Counter customerCounter;
+    private final Counter orderCounter;
+    private final Timer duration;
+
     /**
-     * Defines a CommandLineRunner bean that seeds customer and order data on application startup.
+     * Constructor-based injection of the template, the totals, rollup and sketch stores, the key strategy, the meter
+     * registry and the seeding settings.
      *
-     * @param customerRepo the repository for customer entities
-     * @param orderRepo    the repository for order entities
-     * @return a runner that performs the data seeding
+     * @param reactiveMongoTemplate the reactive MongoDB template
+     * @param salesTotalsStore      the store whose materialized totals are rebuilt after seeding
+     * @param salesRollupStore      the store maintaining per-job sales rollups, updated per batch
+     * @param salesSketchStore      the store maintaining approximate sales sketches, updated per batch
+     * @param keyStrategy           the strategy generating customer and order keys
+     * @param meterRegistry         the registry receiving the seeding progress metrics
+     * @param enabled               whether seeding runs at all
+     * @param customerCount         the number of customers to create
+     * @param batchSize             the number of customers generated and written per batch
+     * @param concurrency           the number of batches written concurrently
+     */
+    public DataSeeder(ReactiveMongoTemplate reactiveMongoTemplate,
+                      SalesTotalsStore salesTotalsStore,
+                      SalesRollupStore salesRollupStore,
+                      SalesSketchStore salesSketchStore,
+                      KeyStrategy keyStrategy,
+                      MeterRegistry meterRegistry,
+                      @Value("${seed.enabled:true}") boolean enabled,
+                      @Value("${seed.customers:100000}") int customerCount,
+                      @Value("${seed.batch-size:1000}") int batchSize,
+                      @Value("${seed.concurrency:4}") int concurrency) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.salesTotalsStore = salesTotalsStore;
+        this.salesRollupStore = salesRollupStore;
+        this.salesSketchStore = salesSketchStore;
+        this.keyStrategy = keyStrategy;
+        this.enabled = enabled;
+        this.customerCount = customerCount;
+        this.batchSize = batchSize;
+        this.concurrency = concurrency;
+
+        this.customerCounter = Counter.builder("seed.customers.inserted")
+                .description("Customers inserted by the data seeder")
+                .baseUnit("customers")
+                .register(meterRegistry);
+        this.orderCounter = Counter.builder("seed.orders.inserted")
+                .description("Orders inserted by the data seeder")
+                .baseUnit("orders")
+                .register(meterRegistry);
+        Gauge.builder("seed.progress", this, seeder -> seeder.batchesTotal.get() == 0
+                        ? 0d : (double) seeder.batchesWritten.get() / seeder.batchesTotal.get())
+                .description("Fraction of the seeding batches written")
+                .register(meterRegistry);
+        this.duration = Timer.builder("seed.duration")
+                .description("Time taken to seed the database, totals rebuild included")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Defines a CommandLineRunner bean that starts seeding customer and order data on application startup.
+     * <p>
+     * The runner returns immediately; seeding continues in the background.
+     *
+     * @return a runner that triggers the data seeding
      */
     @Bean
-    public CommandLineRunner seedData(CustomerRepository customerRepo, OrderRepository orderRepo) {
+    public CommandLineRunner seedData() {
         return args -> {
-            // Check if database is already initialized
-            if (customerRepo.count() > 0) {
-                System.out.println("❌ Already initialized. Skipping...");
+            if (!enabled) {
                 return;
             }
+            seed().subscribe(
+                    null,
+                    error -> log.error("Seeding failed", error));
+        };
+    }
 
-            List<Customer> customers = new ArrayList<>();
-            List<Order> orders = new ArrayList<>();
-            Random random = new Random();
-
-            for (int i = 0; i < 100_000; i++) {
-                // Create a new customer with a unique name and a cyclic job title
-                Customer customer = new Customer("Customer_" + i, "Job_" + (i % 50));
-                customers.add(customer);
-
-                // Create 1–3 orders per customer with random total and discount
-                int orderCount = 1 + random.nextInt(3);
-                for (int j = 0; j < orderCount; j++) {
-                    double total = 100 + random.nextDouble() * 900; // total between 100 and 1000
-                    double discount = total * (random.nextDouble() * 0.2); // up to 20% discount
-                    orders.add(new Order(customer.getId(), total, discount));
-                }
-
-                // Batch insert every 1000 customers and associated orders
-                if (customers.size() == 1000) {
-                    customerRepo.saveAll(customers); // Save batch of customers
-                    orderRepo.saveAll(orders);       // Save batch of orders
-                    System.out.println("Inserted batch up to: " + i);
-                    customers.clear();
-                    orders.clear();
-                }
-            }
+    /**
+     * Seeds the database unless it already contains customers.
+     * <p>
+     * Every written batch is added to the per-job sales rollups. Once all batches are written, the
+     * materialized sales totals are rebuilt from the new orders.
+     *
+     * @return Mono completing when seeding has finished (or was skipped)
+     */
+    public Mono<Void> seed() {
+        return reactiveMongoTemplate.exists(new Query(), Customer.class)
+                .flatMap(initialized -> {
+                    // Check if database is already initialized
+                    if (initialized) {
+                        log.info("Already initialized. Skipping...");
+                        return Mono.empty();
+                    }
+                    return insertAllBatches();
+                });
+    }
+
+    /**
+     * Generates and writes all batches, reporting progress along the way.
+     *
+     * @return Mono completing when all batches and the totals rebuild are done
+     */
+    private Mono<Void> insertAllBatches() {
+        int batchCount = (customerCount + batchSize - 1) / batchSize;
+        AtomicLong customersInserted = new AtomicLong();
+        AtomicLong ordersInserted = new AtomicLong();
+        long start = System.nanoTime();
+        batchesWritten.set(0);
+        batchesTotal.set(batchCount);
+
+        return Flux.range(0, batchCount)
+                // Generate each batch on the parallel scheduler, write up to `concurrency` batches at once
+                .flatMap(batchIndex -> Mono.fromCallable(() -> generateBatch(batchIndex))
+                                .subscribeOn(Schedulers.parallel())
+                                .flatMap(this::insertBatch),
+                        concurrency)
+                .doOnNext(batch -> {
+                    long customers = customersInserted.addAndGet(batch.customers().size());
+                    long orders = ordersInserted.addAndGet(batch.orders().size());
+                    customerCounter.increment(batch.customers().size());
+                    orderCounter.increment(batch.orders().size());
+                    // Batches complete out of order, so progress is counted in batches rather than derived from sizes
+                    int batches = batchesWritten.incrementAndGet();
+                    if (batches % 10 == 0 || batches == batchCount) {
+                        log.info("Inserted {} / {} customers and {} orders ({} customers/s)",
+                                customers, customerCount, orders, ratePerSecond(customers, start));
+                    }
+                })
+                .then(Mono.defer(salesTotalsStore::rebuild))
+                .doOnSuccess(totals -> {
+                    long elapsed = System.nanoTime() - start;
+                    duration.record(elapsed, TimeUnit.NANOSECONDS);
+                    log.info("Finished seeding {} customers and {} orders in {} ms",
+                            customersInserted.get(), ordersInserted.get(), Duration.ofNanos(elapsed).toMillis());
+                })
+                .then();
+    }
+
+    /**
+     * Generates the customers of one batch together with 1–3 orders per customer.
+     *
+     * @param batchIndex the zero-based index of the batch
+     * @return the generated batch
+     */
+    private SeedBatch generateBatch(int batchIndex) {
+        ThreadLocalRandom random = ThreadLocalRandom.current(); // One generator per worker thread, no contention
+        int from = batchIndex * batchSize;
+        int to = Math.min(from + batchSize, customerCount);
+
+        List<Customer> customers = new ArrayList<>(to - from);
+        List<Order> orders = new ArrayList<>((to - from) * 2);
+        for (int i = from; i < to; i++) {
+            // Create a new customer with a unique name and a cyclic job title
+            Customer customer = new Customer("Customer_" + i, "Job_" + (i % 50));
+            customer.setId(keyStrategy.nextId()); // Orders reference the customer before it is written
+            customers.add(customer);
 
-            // Save any remaining records that didn't make up a full batch
-            if (!customers.isEmpty()) {
-                customerRepo.saveAll(customers);
-                orderRepo.saveAll(orders);
-                System.out.println("Inserted final batch.");
+            // Create 1–3 orders per customer with random total and discount
+            int orderCount = 1 + random.nextInt(3);
+            for (int j = 0; j < orderCount; j++) {
+                double total = 100 + random.nextDouble() * 900; // total between 100 and 1000
+                double discount = total * (random.nextDouble() * 0.2); // up to 20% discount
+                Order order = new Order(customer.getId(), total, discount);
+                order.setId(keyStrategy.nextId());
+                orders.add(order);
             }
+        }
+        return new SeedBatch(customers, orders);
+    }
 
-            System.out.println("✅ Finished seeding 100,000 customers and their orders.");
-        };
+    /**
+     * Writes a batch with two concurrent unordered bulk inserts, one per collection, then rolls up and sketches its orders.
+     *
+     * @param batch the batch to write
+     * @return Mono emitting the batch once both inserts are acknowledged and the rollups and sketches updated
+     */
+    private Mono<SeedBatch> insertBatch(SeedBatch batch) {
+        Mono<?> customers = reactiveMongoTemplate.bulkOps(BulkMode.UNORDERED, Customer.class)
+                .insert(batch.customers())
+                .execute();
+        Mono<?> orders = reactiveMongoTemplate.bulkOps(BulkMode.UNORDERED, Order.class)
+                .insert(batch.orders())
+                .execute();
+        return Mono.when(customers, orders)
+                .then(Mono.defer(() -> salesRollupStore.ordersWritten(batch.orders())))
+                .then(Mono.defer(() -> salesSketchStore.ordersWritten(batch.orders())))
+                .thenReturn(batch);
+    }
+
+    /**
+     * Computes an insertion rate.
+     *
+     * @param count the number of inserted items
+     * @param start the {@link System#nanoTime()} at which seeding started
+     * @return the number of items inserted per second
+     */
+    private static long ratePerSecond(long count, long start) {
+        long elapsedMillis = Math.max(1, Duration.ofNanos(System.nanoTime() - start).toMillis());
+        return count * 1000 / elapsedMillis;
+    }
+
+    /**
+     * The customers and orders generated for one batch.
+     *
+     * @param customers the generated customers
+     * @param orders    the orders of those customers
+     */
+    private record SeedBatch(List<Customer> customers, List<Order> orders) {
     }
-}
\ No newline at end of file
+}
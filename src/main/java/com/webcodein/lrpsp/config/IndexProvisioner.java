@@ -0,0 +1,227 @@
+package com.webcodein.lrpsp.config;
+
+import com.mongodb.MongoException;
+import com.webcodein.lrpsp.model.JobSalesRollup;
+import com.webcodein.lrpsp.model.Order;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Declares and provisions the MongoDB indexes required by the application's query paths.
+ * <p>
+ * Indexes are ensured with {@code ReactiveIndexOperations} once the application is ready, so startup
+ * is never blocked and provisioning is idempotent: an index that already exists is left untouched.
+ * Indexes superseded by a declared one are dropped first, so existing databases do not keep
+ * maintaining them on every write; an index that is already gone is skipped. The build status of every
+ * declared index can be read through {@link #status()}.
+ */
+@Component
+public class IndexProvisioner {
+
+    private static final Logger log = LoggerFactory.getLogger(IndexProvisioner.class);
+    private static final int NAMESPACE_NOT_FOUND = 26; // Server error code of a missing collection
+    private static final int INDEX_NOT_FOUND = 27;     // Server error code of a missing index
+
+    /**
+     * Build status of a declared index.
+     */
+    public enum State {
+        PENDING, // Not yet ensured
+        READY,   // Exists on the server
+        FAILED   // Could not be created; see the application log
+    }
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+    private final boolean verifyQueries; // Whether to explain() the indexed queries after provisioning
+    private final List<IndexDeclaration> declarations;
+    private final List<RetiredIndex> retired;
+    private final Map<String, State> states = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor-based injection of ReactiveMongoTemplate and the verification flag.
+     *
+     * @param reactiveMongoTemplate the reactive MongoDB template
+     * @param verifyQueries         whether to verify via {@code explain()} that the indexed queries are covered
+     */
+    public IndexProvisioner(ReactiveMongoTemplate reactiveMongoTemplate,
+                            @Value("${mongo.indexes.verify-queries:false}") boolean verifyQueries) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.verifyQueries = verifyQueries;
+        this.declarations = List.of(
+                // Serves per-customer order lookups and, as a covering index, sums of their totals and discounts
+                new IndexDeclaration(Order.class, new Index()
+                        .on("customerId", Sort.Direction.ASC)
+                        .on("total", Sort.Direction.ASC)
+                        .on("discount", Sort.Direction.ASC)
+                        .named("customerId_total_discount")),
+                // Serves rollup range queries, with or without a job filter
+                new IndexDeclaration(JobSalesRollup.class, new Index()
+                        .on("granularity", Sort.Direction.ASC)
+                        .on("bucket", Sort.Direction.ASC)
+                        .on("job", Sort.Direction.ASC)
+                        .named("granularity_bucket_job")),
+                // Removes minute and hour rollups once their retention has passed
+                new IndexDeclaration(JobSalesRollup.class, new Index()
+                        .on("expireAt", Sort.Direction.ASC)
+                        .expire(0)
+                        .named("expireAt_ttl"))
+        );
+        this.retired = List.of(
+                // Superseded by customerId_total_discount, which also covers the discount sums
+                new RetiredIndex(Order.class, "customerId_total")
+        );
+        declarations.forEach(declaration -> states.put(declaration.key(reactiveMongoTemplate), State.PENDING));
+    }
+
+    /**
+     * Drops the retired indexes and ensures all declared indexes in the background once the application is ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void provision() {
+        Flux.fromIterable(retired)
+                .concatMap(this::drop)
+                .thenMany(Flux.fromIterable(declarations))
+                .concatMap(this::ensure)
+                .then(verifyQueries ? verifyCustomerOrdersQuery() : Mono.empty())
+                .subscribe();
+    }
+
+    /**
+     * Returns the build status of every declared index, keyed by {@code collection.indexName}.
+     *
+     * @return a sorted snapshot of the index states
+     */
+    public Map<String, State> status() {
+        return new TreeMap<>(states);
+    }
+
+    /**
+     * Ensures a single index and records its resulting state.
+     *
+     * @param declaration the index to ensure
+     * @return Mono completing once the index exists or creation failed
+     */
+    private Mono<Void> ensure(IndexDeclaration declaration) {
+        String key = declaration.key(reactiveMongoTemplate);
+        return reactiveMongoTemplate.indexOps(declaration.entity())
+                .ensureIndex(declaration.index())
+                .doOnSuccess(name -> {
+                    states.put(key, State.READY);
+                    log.info("Index {} is ready", key);
+                })
+                .onErrorResume(error -> {
+                    states.put(key, State.FAILED);
+                    log.warn("Could not create index {}", key, error);
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    /**
+     * Drops a retired index, skipping it when it, or its collection, does not exist.
+     *
+     * @param index the index to drop
+     * @return Mono completing once the index is gone or dropping it failed
+     */
+    private Mono<Void> drop(RetiredIndex index) {
+        String key = reactiveMongoTemplate.getCollectionName(index.entity()) + "." + index.name();
+        return reactiveMongoTemplate.indexOps(index.entity())
+                .dropIndex(index.name())
+                .doOnSuccess(done -> log.info("Dropped retired index {}", key))
+                .onErrorResume(error -> {
+                    if (isMissing(error)) {
+                        log.debug("Retired index {} does not exist", key);
+                    } else {
+                        log.warn("Could not drop retired index {}", key, error);
+                    }
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * Tells whether an error reports a missing index or collection, possibly wrapped by Spring's exception translation.
+     *
+     * @param error the error raised by the server call
+     * @return true if the index or its collection does not exist
+     */
+    private static boolean isMissing(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof MongoException mongoException) {
+                int code = mongoException.getCode();
+                return code == INDEX_NOT_FOUND || code == NAMESPACE_NOT_FOUND;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Explains the per-customer order query and warns when it is not answered from the index alone.
+     * <p>
+     * A covered plan scans the index ({@code IXSCAN}) without fetching documents ({@code FETCH}).
+     *
+     * @return Mono completing once the plan has been checked
+     */
+    private Mono<Void> verifyCustomerOrdersQuery() {
+        Document filter = new Document("customerId", "");
+        Document projection = new Document("_id", 0).append("customerId", 1).append("total", 1).append("discount", 1);
+
+        return reactiveMongoTemplate.getCollection(reactiveMongoTemplate.getCollectionName(Order.class))
+                .flatMap(collection -> Mono.from(collection.find(filter).projection(projection).explain()))
+                .doOnNext(explain -> {
+                    String plan = explain.toJson();
+                    if (plan.contains("IXSCAN") && !plan.contains("FETCH")) {
+                        log.info("Per-customer order query is covered by an index");
+                    } else {
+                        log.warn("Per-customer order query is not index-covered: {}", plan);
+                    }
+                })
+                .onErrorResume(error -> {
+                    log.warn("Could not explain the per-customer order query", error);
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    /**
+     * An index declared for the collection of an entity.
+     *
+     * @param entity the mapped entity whose collection holds the index
+     * @param index  the index definition
+     */
+    private record IndexDeclaration(Class<?> entity, Index index) {
+
+        /**
+         * Builds the status key of the index.
+         *
+         * @param template the template resolving collection names
+         * @return the key in the form {@code collection.indexName}
+         */
+        private String key(ReactiveMongoTemplate template) {
+            return template.getCollectionName(entity) + "." + index.getIndexOptions().getString("name");
+        }
+    }
+
+    /**
+     * An index that is no longer declared and is dropped from existing databases.
+     *
+     * @param entity the mapped entity whose collection held the index
+     * @param name   the index name
+     */
+    private record RetiredIndex(Class<?> entity, String name) {
+    }
+}
@@ -0,0 +1,104 @@
+package com.webcodein.lrpsp.config;
+
+import com.webcodein.lrpsp.model.Customer;
+import com.webcodein.lrpsp.model.CustomerSalesTotal;
+import com.webcodein.lrpsp.model.Order;
+import com.webcodein.lrpsp.service.KeyStrategy;
+import org.bson.Document;
+import org.reactivestreams.Publisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.mapping.event.ReactiveBeforeConvertCallback;
+import org.springframework.data.mongodb.core.mapping.event.ReactiveBeforeSaveCallback;
+import reactor.core.publisher.Mono;
+
+/**
+ * Configuration class wiring the {@link KeyStrategy} into Spring Data MongoDB.
+ * <p>
+ * Key properties are string-typed in the model, so their storage form cannot be selected by a
+ * type converter. Instead the key strategy is registered as a property value converter on every
+ * key property, which covers non-ID fields on write and all key properties in queries and on read.
+ * Document IDs are written without value converters, so an entity callback converts them.
+ */
+@Configuration
+public class KeyConfiguration {
+
+    /**
+     * Registers the key strategy on every property holding a customer or order key.
+     *
+     * @param keyStrategy the configured key strategy
+     * @return the custom conversions replacing Spring Boot's defaults
+     */
+    @Bean
+    public MongoCustomConversions mongoCustomConversions(KeyStrategy keyStrategy) {
+        return MongoCustomConversions.create(adapter -> adapter.configurePropertyConversions(registrar -> registrar
+                .registerConverter(Customer.class, "id", keyStrategy)
+                .registerConverter(Order.class, "id", keyStrategy)
+                .registerConverter(Order.class, "customerId", keyStrategy)
+                .registerConverter(CustomerSalesTotal.class, "customerId", keyStrategy)));
+    }
+
+    /**
+     * Assigns generated keys to new customers and orders and stores their IDs in the configured form.
+     *
+     * @param keyStrategy the configured key strategy
+     * @return the entity callback
+     */
+    @Bean
+    public KeyAssignment keyAssignment(KeyStrategy keyStrategy) {
+        return new KeyAssignment(keyStrategy);
+    }
+
+    /**
+     * Entity callback assigning and converting the IDs of customers and orders.
+     * <p>
+     * It runs for single saves and inserts as well as for bulk inserts.
+     */
+    public static class KeyAssignment implements ReactiveBeforeConvertCallback<Object>, ReactiveBeforeSaveCallback<Object> {
+
+        private final KeyStrategy keyStrategy;
+
+        /**
+         * Constructor-based injection of the key strategy.
+         *
+         * @param keyStrategy the configured key strategy
+         */
+        public KeyAssignment(KeyStrategy keyStrategy) {
+            this.keyStrategy = keyStrategy;
+        }
+
+        /**
+         * Generates an ID for a customer or order that has none.
+         *
+         * @param entity     the entity about to be converted
+         * @param collection the target collection
+         * @return Publisher emitting the same entity
+         */
+        @Override
+        public Publisher<Object> onBeforeConvert(Object entity, String collection) {
+            if (entity instanceof Customer customer && customer.getId() == null) {
+                customer.setId(keyStrategy.nextId());
+            } else if (entity instanceof Order order && order.getId() == null) {
+                order.setId(keyStrategy.nextId());
+            }
+            return Mono.just(entity);
+        }
+
+        /**
+         * Replaces the string ID of a converted customer or order with its stored form.
+         *
+         * @param entity     the entity about to be saved
+         * @param document   the converted document, modified in place
+         * @param collection the target collection
+         * @return Publisher emitting the same entity
+         */
+        @Override
+        public Publisher<Object> onBeforeSave(Object entity, Document document, String collection) {
+            if ((entity instanceof Customer || entity instanceof Order) && document.get("_id") instanceof String id) {
+                document.put("_id", keyStrategy.toStored(id));
+            }
+            return Mono.just(entity);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.webcodein.lrpsp.controller;
+
+import com.webcodein.lrpsp.config.AdmissionControlFilter;
+import com.webcodein.lrpsp.config.IndexProvisioner;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * Controller exposing operational information about the application.
+ */
+@RestController
+public class AdminController {
+
+    private final IndexProvisioner indexProvisioner;
+    private final AdmissionControlFilter admissionControlFilter;
+
+    /**
+     * Constructor-based injection of IndexProvisioner and AdmissionControlFilter.
+     *
+     * @param indexProvisioner       the component provisioning MongoDB indexes
+     * @param admissionControlFilter the filter limiting requests per route
+     */
+    public AdminController(IndexProvisioner indexProvisioner, AdmissionControlFilter admissionControlFilter) {
+        this.indexProvisioner = indexProvisioner;
+        this.admissionControlFilter = admissionControlFilter;
+    }
+
+    /**
+     * Reports the build status of every declared MongoDB index.
+     *
+     * @return Mono emitting a map of {@code collection.indexName} to its state
+     */
+    @GetMapping("/admin/indexes")
+    public Mono<Map<String, IndexProvisioner.State>> indexStatus() {
+        return Mono.just(indexProvisioner.status());
+    }
+
+    /**
+     * Reports the current concurrency limit and the number of requests in flight of every route.
+     *
+     * @return Mono emitting a map of route pattern to its {@code limit} and {@code inFlight} counts
+     */
+    @GetMapping("/admin/admission")
+    public Mono<Map<String, Map<String, Integer>>> admissionStatus() {
+        return Mono.just(admissionControlFilter.status());
+    }
+}
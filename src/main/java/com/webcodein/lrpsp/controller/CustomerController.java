@@ -0,0 +1,60 @@
+package com.webcodein.lrpsp.controller;
+
+import com.webcodein.lrpsp.config.CodecConfiguration;
+import com.webcodein.lrpsp.model.Customer;
+import com.webcodein.lrpsp.model.CustomerPage;
+import com.webcodein.lrpsp.service.CustomerListingService;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Controller for listing customers page by page or as a stream.
+ */
+@RestController
+public class CustomerController {
+
+    private final CustomerListingService customerListingService;
+
+    /**
+     * Constructor-based injection of CustomerListingService.
+     *
+     * @param customerListingService the service listing customers
+     */
+    public CustomerController(CustomerListingService customerListingService) {
+        this.customerListingService = customerListingService;
+    }
+
+    /**
+     * Lists one page of customers using keyset pagination on the customer ID.
+     *
+     * @param after  the {@code next} cursor of the previous page; omit for the first page
+     * @param size   the page size
+     * @param fields comma-separated fields to return ({@code name}, {@code job}); omit for all fields
+     * @return Mono emitting the page and the cursor of the next one
+     */
+    @GetMapping("/customers")
+    public Mono<CustomerPage> listCustomers(@RequestParam(value = "after", required = false) String after,
+                                            @RequestParam(value = "size", defaultValue = "100") int size,
+                                            @RequestParam(value = "fields", required = false) String fields) {
+        return customerListingService.findPage(after, size, fields);
+    }
+
+    /**
+     * Streams customers in ID order from a single batched cursor.
+     *
+     * @param after  the ID to start after; omit to start from the beginning
+     * @param fields comma-separated fields to return ({@code name}, {@code job}); omit for all fields
+     * @return Flux emitting the customers as newline-delimited JSON, server-sent events or a Smile stream
+     */
+    @GetMapping(value = "/customers/stream",
+            produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE,
+                    CodecConfiguration.APPLICATION_STREAM_SMILE_VALUE})
+    public Flux<Customer> streamCustomers(@RequestParam(value = "after", required = false) String after,
+                                          @RequestParam(value = "fields", required = false) String fields) {
+        return customerListingService.stream(after, fields);
+    }
+}
@@ -1,15 +1,41 @@
 package com.webcodein.lrpsp.controller;
 
+import com.webcodein.lrpsp.config.CodecConfiguration;
+import com.webcodein.lrpsp.model.ApproximateSalesSummary;
 import com.webcodein.lrpsp.model.Customer;
+import com.webcodein.lrpsp.model.CustomerSalesSummary;
+import com.webcodein.lrpsp.model.CustomerSalesTotal;
+import com.webcodein.lrpsp.model.IngestResult;
+import com.webcodein.lrpsp.model.JobSalesRollup;
 import com.webcodein.lrpsp.model.Order;
+import com.webcodein.lrpsp.model.RollupGranularity;
+import com.webcodein.lrpsp.service.AdaptiveBackpressure;
+import com.webcodein.lrpsp.service.CustomerCache;
+import com.webcodein.lrpsp.service.FieldProjection;
+import com.webcodein.lrpsp.service.IngestService;
+import com.webcodein.lrpsp.service.OrderWriteBehindBuffer;
+import com.webcodein.lrpsp.service.OrderWriteListener;
+import com.webcodein.lrpsp.service.SalesMetric;
+import com.webcodein.lrpsp.service.SalesRollupStore;
+import com.webcodein.lrpsp.service.SalesSketchStore;
+import com.webcodein.lrpsp.service.SalesSummaryService;
+import com.webcodein.lrpsp.service.SalesTotalsStore;
+import com.webcodein.lrpsp.service.SingleFlight;
+import com.webcodein.lrpsp.service.SummarySource;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Controller for handling reactive endpoints related to Customer and Order operations.
@@ -18,19 +44,65 @@ import java.util.Map;
 @RestController
 public class DataController {
 
+    private static final Set<String> ORDER_FIELDS = Set.of("customerId", "total", "discount"); // Fields a client may select
+
     private final ReactiveMongoTemplate reactiveMongoTemplate;
+    private final SalesSummaryService salesSummaryService;
+    private final SalesTotalsStore salesTotalsStore;
+    private final SalesRollupStore salesRollupStore;
+    private final SalesSketchStore salesSketchStore;
+    private final List<OrderWriteListener> orderWriteListeners;
+    private final CustomerCache customerCache;
+    private final IngestService ingestService;
+    private final OrderWriteBehindBuffer orderWriteBehindBuffer;
+    private final SingleFlight singleFlight;
+    private final AdaptiveBackpressure adaptiveBackpressure;
+    private final MeterRegistry meterRegistry;
 
     /**
-     * Constructor-based injection of ReactiveMongoTemplate.
+     * Constructor-based injection of ReactiveMongoTemplate and the supporting services.
      *
      * @param reactiveMongoTemplate the reactive MongoDB template
+     * @param salesSummaryService   the service computing sales summaries
+     * @param salesTotalsStore      the store maintaining materialized sales totals
+     * @param salesRollupStore      the store maintaining per-job sales rollups
+     * @param salesSketchStore      the store maintaining approximate sales sketches
+     * @param orderWriteListeners   the listeners maintaining data derived from orders (totals, rollups, sketches)
+     * @param customerCache         the read cache in front of customer lookups
+     * @param ingestService         the service writing batches of customers and orders
+     * @param orderWriteBehindBuffer the optional write-behind buffer for order creation
+     * @param singleFlight          the coalescer of identical concurrent requests
+     * @param adaptiveBackpressure  the optional lossy backpressure operator for streaming endpoints
+     * @param meterRegistry         the registry counting order write listener failures
      */
-    public DataController(ReactiveMongoTemplate reactiveMongoTemplate) {
+    public DataController(ReactiveMongoTemplate reactiveMongoTemplate,
+                          SalesSummaryService salesSummaryService,
+                          SalesTotalsStore salesTotalsStore,
+                          SalesRollupStore salesRollupStore,
+                          SalesSketchStore salesSketchStore,
+                          List<OrderWriteListener> orderWriteListeners,
+                          CustomerCache customerCache,
+                          IngestService ingestService,
+                          OrderWriteBehindBuffer orderWriteBehindBuffer,
+                          SingleFlight singleFlight,
+                          AdaptiveBackpressure adaptiveBackpressure,
+                          MeterRegistry meterRegistry) {
         this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.salesSummaryService = salesSummaryService;
+        this.salesTotalsStore = salesTotalsStore;
+        this.salesRollupStore = salesRollupStore;
+        this.salesSketchStore = salesSketchStore;
+        this.orderWriteListeners = orderWriteListeners;
+        this.customerCache = customerCache;
+        this.ingestService = ingestService;
+        this.orderWriteBehindBuffer = orderWriteBehindBuffer;
+        this.singleFlight = singleFlight;
+        this.adaptiveBackpressure = adaptiveBackpressure;
+        this.meterRegistry = meterRegistry;
     }
 
     /**
-     * Creates a new customer and saves it to the database.
+     * Creates a new customer, saves it to the database and caches it.
      *
      * @param customer the customer to be created
      * @return Mono emitting the saved Customer object
@@ -38,78 +110,229 @@ public class DataController {
     @PostMapping("/customer/create")
     public Mono<Customer> createCustomer(@RequestBody Customer customer) {
         // Save the customer to MongoDB reactively
-        return reactiveMongoTemplate.save(customer);
+        return reactiveMongoTemplate.save(customer)
+                .doOnNext(customerCache::put); // Write-through so the next lookup is a cache hit
+    }
+
+    /**
+     * Creates a batch of customers submitted as a JSON array or as newline-delimited JSON.
+     * <p>
+     * Customers are written in chunks with unordered bulk inserts while the body is still being read,
+     * and one result per customer is streamed back.
+     *
+     * @param customers the customers to be created
+     * @return Flux emitting one {@link IngestResult} per submitted customer, in submission order
+     */
+    @PostMapping(value = "/customer/batch-create",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE},
+            produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public Flux<IngestResult> createCustomers(@RequestBody Flux<Customer> customers) {
+        return ingestService.ingestCustomers(customers);
     }
 
     /**
-     * Retrieves a customer by ID.
+     * Retrieves a customer by ID, served from the customer cache when possible.
+     * <p>
+     * Concurrent lookups of the same uncached ID share a single query (see {@link CustomerCache#find}).
      *
      * @param customerId the ID of the customer to find
      * @return Mono emitting the found Customer object (or empty if not found)
      */
     @GetMapping("/customer/find-by-id")
     public Mono<Customer> findCustomerById(@RequestParam("customerId") String customerId) {
-        return getCustomerById(customerId)
-                .log(); // Logs signals for debugging and traceability
+        return customerCache.find(customerId);
     }
 
     /**
-     * Creates a new order and saves it to the database.
+     * Creates a new order, saves it to the database and adds it to the materialized sales totals and rollups.
+     * <p>
+     * Once saved, the order is returned even if updating the derived data fails (see
+     * {@link OrderWriteListener#notifyAll}), so a client never retries a write that succeeded.
+     * <p>
+     * When write-behind is enabled, the order is acknowledged once buffered and written later in bulk
+     * (see {@link OrderWriteBehindBuffer}); a full buffer is answered with {@code 429 Too Many Requests}.
      *
      * @param order the order to be created
-     * @return Mono emitting the saved Order object
+     * @return Mono emitting the saved (or buffered) Order object
      */
     @PostMapping("/order/create")
     public Mono<Order> createOrder(@RequestBody Order order) {
-        return reactiveMongoTemplate.save(order);
+        if (orderWriteBehindBuffer.isEnabled()) {
+            return orderWriteBehindBuffer.enqueue(order);
+        }
+        return reactiveMongoTemplate.save(order)
+                .flatMap(saved -> OrderWriteListener.notifyAll(orderWriteListeners, List.of(saved), meterRegistry)
+                        .thenReturn(saved));
+    }
+
+    /**
+     * Retrieves the orders of a customer.
+     * <p>
+     * The optional field selection is pushed down into the query projection, so only the requested
+     * fields are read from MongoDB and serialized. Depending on the {@code Accept} header, orders are
+     * written as a JSON array, as newline-delimited JSON or in the binary Smile format.
+     *
+     * @param customerId the ID of the customer
+     * @param fields     comma-separated fields to return ({@code customerId}, {@code total}, {@code discount}); omit for all fields
+     * @return Flux emitting the customer's orders
+     */
+    @GetMapping("/order/find-by-customer")
+    public Flux<Order> findOrdersByCustomer(@RequestParam("customerId") String customerId,
+                                            @RequestParam(value = "fields", required = false) String fields) {
+        Query query = Query.query(Criteria.where("customerId").is(customerId));
+        return reactiveMongoTemplate.find(FieldProjection.apply(query, fields, ORDER_FIELDS), Order.class);
+    }
+
+    /**
+     * Creates a batch of orders submitted as a JSON array or as newline-delimited JSON.
+     * <p>
+     * Orders are written in chunks with unordered bulk inserts while the body is still being read,
+     * and one result per order is streamed back.
+     *
+     * @param orders the orders to be created
+     * @return Flux emitting one {@link IngestResult} per submitted order, in submission order
+     */
+    @PostMapping(value = "/order/batch-create",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE},
+            produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public Flux<IngestResult> createOrders(@RequestBody Flux<Order> orders) {
+        return ingestService.ingestOrders(orders);
     }
 
     /**
      * Calculates the sales summary per customer.
+     * <p>
+     * The summary is computed by a single MongoDB aggregation pipeline (see {@link SalesSummaryService}),
+     * either over the orders or over the materialized per-customer totals. The pipeline computes every
+     * figure in one pass; {@code metric} selects the one reported. Identical concurrent requests share a
+     * single computation (see {@link SingleFlight}).
      *
-     * @return Mono emitting a map with customer names as keys and their total sales as values
+     * @param source where the per-customer totals are read from ({@code AGGREGATE}, {@code MATERIALIZED}, {@code PARALLEL} or {@code REPLAY})
+     * @param metric the figure reported per customer ({@code TOTAL}, {@code DISCOUNT}, {@code NET}, {@code ORDERS} or {@code AVERAGE})
+     * @return Mono emitting a map with customer names as keys and the selected figure as values
      */
     @GetMapping("/sales/summary")
-    public Mono<Map<String, Double>> calculateSalesSummary() {
-        return reactiveMongoTemplate.findAll(Customer.class)
-                // For each customer, calculate their total sales and combine the result into a tuple
-                .flatMap(customer -> Mono.zip(
-                        Mono.just(customer),
-                        calculateSalesSummary(customer.getId()))
-                )
-                // Convert the list of tuples to a Map of customer name to total sales
-                .collectMap(
-                        tuple2 -> tuple2.getT1().getName(), // Key: customer name
-                        tuple2 -> tuple2.getT2()            // Value: total sales
-                );
+    public Mono<Map<String, Double>> calculateSalesSummary(
+            @RequestParam(value = "source", defaultValue = "AGGREGATE") SummarySource source,
+            @RequestParam(value = "metric", defaultValue = "TOTAL") SalesMetric metric) {
+        return singleFlight.execute("/sales/summary?source=" + source + "&metric=" + metric,
+                () -> salesSummaryService.summarizeByName(source, metric));
     }
 
     /**
-     * Calculates total sales for a specific customer by summing up their order totals.
+     * Streams the sales summary one customer at a time.
+     * <p>
+     * Records are written as soon as the aggregation cursor yields them, as newline-delimited JSON,
+     * as server-sent events or as a Smile stream depending on the {@code Accept} header. Demand from
+     * the client drives how fast the cursor is read, unless adaptive backpressure is enabled: the cursor
+     * is then read at full speed and records are sampled or dropped while the client lags behind
+     * (see {@link AdaptiveBackpressure}).
      *
-     * @param customerId the ID of the customer
-     * @return Mono emitting the total sales amount for the customer
+     * @param source where the per-customer totals are read from ({@code AGGREGATE}, {@code MATERIALIZED}, {@code PARALLEL} or {@code REPLAY})
+     * @return Flux emitting one {@link CustomerSalesSummary} per customer
      */
-    private Mono<Double> calculateSalesSummary(String customerId) {
-        // Filter orders by customerId
-        Criteria criteria = Criteria.where("customerId").is(customerId);
-        Query query = Query.query(criteria);
-
-        // Find matching orders, extract totals, and reduce to a total sum
-        return reactiveMongoTemplate.find(query, Order.class)
-                .map(Order::getTotal) // Extract total from each order
-                .reduce(0d, Double::sum); // Sum up all totals
+    @GetMapping(value = "/sales/summary/stream",
+            produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE,
+                    CodecConfiguration.APPLICATION_STREAM_SMILE_VALUE})
+    public Flux<CustomerSalesSummary> streamSalesSummary(
+            @RequestParam(value = "source", defaultValue = "AGGREGATE") SummarySource source) {
+        return salesSummaryService.streamCustomers(source)
+                .transform(adaptiveBackpressure.operator("sales.summary.stream"));
     }
 
     /**
-     * Retrieves a customer by ID.
+     * Ranks the customers with the highest sales figures.
+     * <p>
+     * Only the top {@code k} customers are kept while ranking, on the server or in a bounded heap
+     * (see {@link SalesSummaryService#topCustomers}). Identical concurrent requests share a single computation.
+     *
+     * @param k      the number of customers to return
+     * @param metric the figure customers are ranked by ({@code TOTAL}, {@code DISCOUNT}, {@code NET}, {@code ORDERS} or {@code AVERAGE})
+     * @param source where the per-customer figures are read from ({@code AGGREGATE}, {@code MATERIALIZED} or {@code PARALLEL})
+     * @return Mono emitting at most {@code k} customers, highest figure first
+     */
+    @GetMapping("/sales/top")
+    public Mono<List<CustomerSalesSummary>> findTopCustomers(
+            @RequestParam(value = "k", defaultValue = "10") int k,
+            @RequestParam(value = "by", defaultValue = "TOTAL") SalesMetric metric,
+            @RequestParam(value = "source", defaultValue = "AGGREGATE") SummarySource source) {
+        return singleFlight.execute("/sales/top?k=" + k + "&by=" + metric + "&source=" + source,
+                () -> salesSummaryService.topCustomers(k, metric, source));
+    }
+
+    /**
+     * Answers approximate sales figures from sketches instead of reading the orders.
+     * <p>
+     * Distinct customers, order total quantiles and the customers with the most orders are estimated
+     * in constant time and memory whatever the number of orders (see {@link SalesSketchStore}).
+     * Only orders written through the application are covered.
+     *
+     * @param quantiles the order total quantiles to estimate, comma-separated, between 0 and 1
+     * @param top       the number of customers with the most orders to list
+     * @return Mono emitting the approximate figures
+     */
+    @GetMapping("/sales/approximate")
+    public Mono<ApproximateSalesSummary> approximateSales(
+            @RequestParam(value = "quantiles", defaultValue = "0.5,0.9,0.99") List<Double> quantiles,
+            @RequestParam(value = "top", defaultValue = "10") int top) {
+        return salesSketchStore.summarize(quantiles, top);
+    }
+
+    /**
+     * Retrieves the materialized sales totals of a customer.
      *
      * @param customerId the ID of the customer
-     * @return Mono emitting the Customer object if found, otherwise empty
+     * @return Mono emitting the customer's totals (or empty if the customer has no orders)
+     */
+    @GetMapping("/sales/total")
+    public Mono<CustomerSalesTotal> findSalesTotal(@RequestParam("customerId") String customerId) {
+        return salesTotalsStore.findTotal(customerId);
+    }
+
+    /**
+     * Retrieves the per-job sales rollups whose time buckets start within a range.
+     * <p>
+     * Reports read a few rollups per job and bucket instead of scanning the orders. Orders are bucketed
+     * by the time they were written.
+     *
+     * @param granularity the bucket width ({@code MINUTE}, {@code HOUR} or {@code DAY})
+     * @param from        the start of the range (ISO-8601 instant), inclusive; its whole bucket is included
+     * @param to          the end of the range (ISO-8601 instant), exclusive; defaults to now
+     * @param job         the job to restrict to; omit for every job
+     * @return Flux emitting the rollups ordered by bucket and job
+     */
+    @GetMapping("/sales/rollups")
+    public Flux<JobSalesRollup> findSalesRollups(
+            @RequestParam(value = "granularity", defaultValue = "HOUR") RollupGranularity granularity,
+            @RequestParam("from") Instant from,
+            @RequestParam(value = "to", required = false) Instant to,
+            @RequestParam(value = "job", required = false) String job) {
+        return salesRollupStore.findRollups(granularity, from, to != null ? to : Instant.now(), job);
+    }
+
+    /**
+     * Sums the per-job sales rollups over a range, one result per job.
+     *
+     * @param granularity the bucket width summed ({@code MINUTE}, {@code HOUR} or {@code DAY})
+     * @param from        the start of the range (ISO-8601 instant), inclusive; its whole bucket is included
+     * @param to          the end of the range (ISO-8601 instant), exclusive; defaults to now
+     * @return Flux emitting the totals of every job with orders in the range, ordered by job
+     */
+    @GetMapping("/sales/rollups/by-job")
+    public Flux<JobSalesRollup> summarizeSalesRollupsByJob(
+            @RequestParam(value = "granularity", defaultValue = "HOUR") RollupGranularity granularity,
+            @RequestParam("from") Instant from,
+            @RequestParam(value = "to", required = false) Instant to) {
+        return salesRollupStore.summarizeByJob(granularity, from, to != null ? to : Instant.now());
+    }
+
+    /**
+     * Recomputes the materialized sales totals from the order collection to repair drift.
+     *
+     * @return Mono emitting the number of customers with totals after the rebuild
      */
-    private Mono<Customer> getCustomerById(String customerId) {
-        Criteria criteria = Criteria.where("id").is(customerId);
-        Query query = new Query(criteria);
-        return reactiveMongoTemplate.findOne(query, Customer.class);
+    @PostMapping("/sales/totals/rebuild")
+    public Mono<Long> rebuildSalesTotals() {
+        return salesTotalsStore.rebuild();
     }
 }
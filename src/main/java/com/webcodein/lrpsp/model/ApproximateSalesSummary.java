@@ -0,0 +1,105 @@
+package com.webcodein.lrpsp.model;
+
+import java.util.Map;
+
+/**
+ * Represents approximate sales figures answered from sketches rather than from the orders.
+ * <p>
+ * Instances are produced by merging the sales sketches of every application instance and are not persisted.
+ */
+public class ApproximateSalesSummary {
+
+    private long orderCount;                    // Number of sketched orders with a total (exact)
+    private long distinctCustomers;             // Estimated number of distinct customers with orders
+    private Map<String, Double> orderTotalQuantiles; // Estimated order total per requested quantile, e.g. "0.99"
+    private Map<String, Long> heavyHitters;     // Estimated order count per top customer ID, highest first
+    private int instances;                      // Number of instance sketches merged
+
+    /**
+     * Default constructor needed for deserialization and frameworks.
+     */
+    public ApproximateSalesSummary() {
+    }
+
+    // --- Getters and Setters ---
+
+    /**
+     * Gets the number of orders covered by the sketches.
+     * @return the order count
+     */
+    public long getOrderCount() {
+        return orderCount;
+    }
+
+    /**
+     * Sets the number of orders covered by the sketches.
+     * @param orderCount the order count
+     */
+    public void setOrderCount(long orderCount) {
+        this.orderCount = orderCount;
+    }
+
+    /**
+     * Gets the estimated number of distinct customers with orders.
+     * @return the estimated customer count
+     */
+    public long getDistinctCustomers() {
+        return distinctCustomers;
+    }
+
+    /**
+     * Sets the estimated number of distinct customers with orders.
+     * @param distinctCustomers the estimated customer count
+     */
+    public void setDistinctCustomers(long distinctCustomers) {
+        this.distinctCustomers = distinctCustomers;
+    }
+
+    /**
+     * Gets the estimated order totals per quantile.
+     * @return the order totals, keyed by quantile
+     */
+    public Map<String, Double> getOrderTotalQuantiles() {
+        return orderTotalQuantiles;
+    }
+
+    /**
+     * Sets the estimated order totals per quantile.
+     * @param orderTotalQuantiles the order totals, keyed by quantile
+     */
+    public void setOrderTotalQuantiles(Map<String, Double> orderTotalQuantiles) {
+        this.orderTotalQuantiles = orderTotalQuantiles;
+    }
+
+    /**
+     * Gets the estimated order counts of the top customers.
+     * @return the order counts, keyed by customer ID, highest first
+     */
+    public Map<String, Long> getHeavyHitters() {
+        return heavyHitters;
+    }
+
+    /**
+     * Sets the estimated order counts of the top customers.
+     * @param heavyHitters the order counts, keyed by customer ID, highest first
+     */
+    public void setHeavyHitters(Map<String, Long> heavyHitters) {
+        this.heavyHitters = heavyHitters;
+    }
+
+    /**
+     * Gets the number of instance sketches merged.
+     * @return the instance count
+     */
+    public int getInstances() {
+        return instances;
+    }
+
+    /**
+     * Sets the number of instance sketches merged.
+     * @param instances the instance count
+     */
+    public void setInstances(int instances) {
+        this.instances = instances;
+    }
+}
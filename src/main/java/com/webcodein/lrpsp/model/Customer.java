@@ -1,14 +1,14 @@
 package com.webcodein.lrpsp.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
 
-import java.util.UUID;
-
 /**
  * Represents a Customer entity stored in the MongoDB database.
  */
 @Document // Marks this class as a MongoDB document
+@JsonInclude(JsonInclude.Include.NON_NULL) // Fields left out of a projection are omitted from responses
 public class Customer {
 
     @Id
@@ -19,13 +19,12 @@ public class Customer {
 
     /**
      * Constructs a new Customer with the given name and job.
-     * A unique UUID is automatically generated as the ID.
+     * The ID is assigned by the configured key strategy when the customer is first saved.
      *
      * @param name the customer's name
      * @param job  the customer's job title
      */
     public Customer(String name, String job) {
-        this.id = UUID.randomUUID().toString(); // Automatically generate a unique ID
         this.name = name;
         this.job = job;
     }
@@ -0,0 +1,75 @@
+package com.webcodein.lrpsp.model;
+
+import java.util.List;
+
+/**
+ * Represents one page of customers returned by keyset pagination.
+ */
+public class CustomerPage {
+
+    private List<Customer> customers;  // Customers of this page, ordered by ID
+    private String next;               // ID to pass as "after" to fetch the next page, null on the last page
+
+    /**
+     * Default constructor needed for deserialization and frameworks.
+     */
+    public CustomerPage() {
+    }
+
+    /**
+     * Constructs a new page.
+     *
+     * @param customers the customers of the page
+     * @param next      the ID to continue after, or null on the last page
+     */
+    public CustomerPage(List<Customer> customers, String next) {
+        this.customers = customers;
+        this.next = next;
+    }
+
+    // --- Getters and Setters ---
+
+    /**
+     * Gets the customers of this page.
+     * @return the customers
+     */
+    public List<Customer> getCustomers() {
+        return customers;
+    }
+
+    /**
+     * Sets the customers of this page.
+     * @param customers the new customers
+     */
+    public void setCustomers(List<Customer> customers) {
+        this.customers = customers;
+    }
+
+    /**
+     * Gets the ID to continue after.
+     * @return the next cursor, or null on the last page
+     */
+    public String getNext() {
+        return next;
+    }
+
+    /**
+     * Sets the ID to continue after.
+     * @param next the new cursor
+     */
+    public void setNext(String next) {
+        this.next = next;
+    }
+
+    /**
+     * Returns a string representation of the page.
+     * @return a formatted string with the page details
+     */
+    @Override
+    public String toString() {
+        return "CustomerPage{" +
+                "customers=" + (customers != null ? customers.size() : 0) +
+                ", next='" + next + '\'' +
+                '}';
+    }
+}
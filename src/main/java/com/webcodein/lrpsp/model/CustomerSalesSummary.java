@@ -0,0 +1,177 @@
+package com.webcodein.lrpsp.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Represents the aggregated sales figures of a single customer.
+ * <p>
+ * Instances are produced by the sales summary aggregation pipeline and are not persisted. Every figure
+ * is computed in the same pass over the orders.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL) // Ranked customers unknown to the customer collection have no name
+public class CustomerSalesSummary {
+
+    private String customerId;   // The ID of the customer the figures belong to
+    private String name;         // The customer's name
+    private double total;        // Sum of all order totals for the customer (gross revenue)
+    private double discount;     // Sum of all order discounts for the customer
+    private double net;          // Gross revenue minus discounts
+    private long orderCount;     // Number of orders placed by the customer
+    private double average;      // Average order total, 0 without orders
+
+    /**
+     * Default constructor needed for deserialization and frameworks.
+     */
+    public CustomerSalesSummary() {
+    }
+
+    /**
+     * Constructs a new summary for the given customer.
+     *
+     * @param customerId the ID of the customer
+     * @param name       the customer's name
+     * @param total      the sum of the customer's order totals
+     * @param discount   the sum of the customer's order discounts
+     * @param orderCount the number of orders placed by the customer
+     */
+    public CustomerSalesSummary(String customerId, String name, double total, double discount, long orderCount) {
+        this.customerId = customerId;
+        this.name = name;
+        this.total = total;
+        this.discount = discount;
+        this.net = total - discount;
+        this.orderCount = orderCount;
+        this.average = orderCount == 0 ? 0d : total / orderCount;
+    }
+
+    // --- Getters and Setters ---
+
+    /**
+     * Gets the customer ID.
+     * @return the customer ID
+     */
+    public String getCustomerId() {
+        return customerId;
+    }
+
+    /**
+     * Sets the customer ID.
+     * @param customerId the new customer ID
+     */
+    public void setCustomerId(String customerId) {
+        this.customerId = customerId;
+    }
+
+    /**
+     * Gets the customer's name.
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Sets the customer's name.
+     * @param name the new name
+     */
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Gets the sum of the customer's order totals.
+     * @return the total
+     */
+    public double getTotal() {
+        return total;
+    }
+
+    /**
+     * Sets the sum of the customer's order totals.
+     * @param total the total value
+     */
+    public void setTotal(double total) {
+        this.total = total;
+    }
+
+    /**
+     * Gets the sum of the customer's order discounts.
+     * @return the discount
+     */
+    public double getDiscount() {
+        return discount;
+    }
+
+    /**
+     * Sets the sum of the customer's order discounts.
+     * @param discount the discount value
+     */
+    public void setDiscount(double discount) {
+        this.discount = discount;
+    }
+
+    /**
+     * Gets the customer's revenue net of discounts.
+     * @return the net revenue
+     */
+    public double getNet() {
+        return net;
+    }
+
+    /**
+     * Sets the customer's revenue net of discounts.
+     * @param net the net revenue
+     */
+    public void setNet(double net) {
+        this.net = net;
+    }
+
+    /**
+     * Gets the number of orders placed by the customer.
+     * @return the order count
+     */
+    public long getOrderCount() {
+        return orderCount;
+    }
+
+    /**
+     * Sets the number of orders placed by the customer.
+     * @param orderCount the new order count
+     */
+    public void setOrderCount(long orderCount) {
+        this.orderCount = orderCount;
+    }
+
+    /**
+     * Gets the customer's average order total.
+     * @return the average, or 0 without orders
+     */
+    public double getAverage() {
+        return average;
+    }
+
+    /**
+     * Sets the customer's average order total.
+     * @param average the average value
+     */
+    public void setAverage(double average) {
+        this.average = average;
+    }
+
+    /**
+     * Returns a string representation of the summary.
+     * @return a formatted string with the summary details
+     */
+    @Override
+    public String toString() {
+        return "CustomerSalesSummary{" +
+                "customerId='" + customerId + '\'' +
+                ", name='" + name + '\'' +
+                ", total=" + total +
+                ", discount=" + discount +
+                ", net=" + net +
+                ", orderCount=" + orderCount +
+                ", average=" + average +
+                '}';
+    }
+}
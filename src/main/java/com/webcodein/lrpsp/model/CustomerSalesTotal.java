@@ -0,0 +1,107 @@
+package com.webcodein.lrpsp.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Represents the materialized sales totals of a single customer, stored in MongoDB.
+ * <p>
+ * Documents are incremented with {@code $inc} whenever an order is saved and can be
+ * recomputed from the order collection at any time.
+ */
+@Document // Marks this class as a MongoDB document
+public class CustomerSalesTotal {
+
+    @Id
+    private String customerId;   // The ID of the customer these totals belong to
+
+    private double total;        // Sum of all order totals for the customer
+    private double discount;     // Sum of all order discounts for the customer
+    private long orderCount;     // Number of orders placed by the customer
+
+    /**
+     * Default constructor needed for deserialization and frameworks.
+     */
+    public CustomerSalesTotal() {
+    }
+
+    // --- Getters and Setters ---
+
+    /**
+     * Gets the customer ID.
+     * @return the customer ID
+     */
+    public String getCustomerId() {
+        return customerId;
+    }
+
+    /**
+     * Sets the customer ID.
+     * @param customerId the new customer ID
+     */
+    public void setCustomerId(String customerId) {
+        this.customerId = customerId;
+    }
+
+    /**
+     * Gets the sum of the customer's order totals.
+     * @return the total
+     */
+    public double getTotal() {
+        return total;
+    }
+
+    /**
+     * Sets the sum of the customer's order totals.
+     * @param total the total value
+     */
+    public void setTotal(double total) {
+        this.total = total;
+    }
+
+    /**
+     * Gets the sum of the customer's order discounts.
+     * @return the discount
+     */
+    public double getDiscount() {
+        return discount;
+    }
+
+    /**
+     * Sets the sum of the customer's order discounts.
+     * @param discount the discount value
+     */
+    public void setDiscount(double discount) {
+        this.discount = discount;
+    }
+
+    /**
+     * Gets the number of orders placed by the customer.
+     * @return the order count
+     */
+    public long getOrderCount() {
+        return orderCount;
+    }
+
+    /**
+     * Sets the number of orders placed by the customer.
+     * @param orderCount the new order count
+     */
+    public void setOrderCount(long orderCount) {
+        this.orderCount = orderCount;
+    }
+
+    /**
+     * Returns a string representation of the totals.
+     * @return a formatted string with the totals
+     */
+    @Override
+    public String toString() {
+        return "CustomerSalesTotal{" +
+                "customerId='" + customerId + '\'' +
+                ", total=" + total +
+                ", discount=" + discount +
+                ", orderCount=" + orderCount +
+                '}';
+    }
+}
@@ -0,0 +1,114 @@
+package com.webcodein.lrpsp.model;
+
+/**
+ * Represents the outcome of writing a single document submitted to a batch endpoint.
+ */
+public class IngestResult {
+
+    private String id;        // ID of the submitted document
+    private boolean success;  // Whether the document was written
+    private String error;     // Reason of the failure, null on success
+
+    /**
+     * Default constructor needed for deserialization and frameworks.
+     */
+    public IngestResult() {
+    }
+
+    /**
+     * Constructs a new result.
+     *
+     * @param id      the ID of the submitted document
+     * @param success whether the document was written
+     * @param error   the reason of the failure, or null on success
+     */
+    public IngestResult(String id, boolean success, String error) {
+        this.id = id;
+        this.success = success;
+        this.error = error;
+    }
+
+    /**
+     * Creates a result for a document that was written.
+     *
+     * @param id the ID of the document
+     * @return the successful result
+     */
+    public static IngestResult success(String id) {
+        return new IngestResult(id, true, null);
+    }
+
+    /**
+     * Creates a result for a document that could not be written.
+     *
+     * @param id    the ID of the document
+     * @param error the reason of the failure
+     * @return the failed result
+     */
+    public static IngestResult failure(String id, String error) {
+        return new IngestResult(id, false, error);
+    }
+
+    // --- Getters and Setters ---
+
+    /**
+     * Gets the ID of the submitted document.
+     * @return the ID
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Sets the ID of the submitted document.
+     * @param id the new ID
+     */
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    /**
+     * Tells whether the document was written.
+     * @return true on success
+     */
+    public boolean isSuccess() {
+        return success;
+    }
+
+    /**
+     * Sets whether the document was written.
+     * @param success the new success flag
+     */
+    public void setSuccess(boolean success) {
+        this.success = success;
+    }
+
+    /**
+     * Gets the reason of the failure.
+     * @return the error message, or null on success
+     */
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * Sets the reason of the failure.
+     * @param error the new error message
+     */
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    /**
+     * Returns a string representation of the result.
+     * @return a formatted string with the result details
+     */
+    @Override
+    public String toString() {
+        return "IngestResult{" +
+                "id='" + id + '\'' +
+                ", success=" + success +
+                ", error='" + error + '\'' +
+                '}';
+    }
+}
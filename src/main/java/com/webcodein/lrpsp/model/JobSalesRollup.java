@@ -0,0 +1,196 @@
+package com.webcodein.lrpsp.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Represents the pre-aggregated sales of one job title during one time bucket, stored in MongoDB.
+ * <p>
+ * Documents are incremented with {@code $inc} whenever orders are saved, so reports over a time range
+ * read a handful of rollups instead of every order. Rollups summed over a whole range carry no bucket.
+ */
+@Document // Marks this class as a MongoDB document
+@JsonInclude(JsonInclude.Include.NON_NULL) // Range totals have no ID, granularity nor bucket
+public class JobSalesRollup {
+
+    @Id
+    private String id;                      // Granularity, job and bucket start, e.g. HOUR/Job_3/2024-05-01T10:00:00Z
+
+    private RollupGranularity granularity;  // Width of the time bucket
+    private String job;                     // Job title of the customers who placed the orders
+    private Instant bucket;                 // Start of the time bucket
+    private double total;                   // Sum of the order totals
+    private double discount;                // Sum of the order discounts
+    private long orderCount;                // Number of orders
+    private Instant expireAt;               // When the rollup is removed by the TTL index, null to keep it
+
+    /**
+     * Default constructor needed for deserialization and frameworks.
+     */
+    public JobSalesRollup() {
+    }
+
+    /**
+     * Builds the ID of the rollup of a job and bucket.
+     *
+     * @param granularity the width of the time bucket
+     * @param job         the job title
+     * @param bucket      the start of the time bucket
+     * @return the rollup ID
+     */
+    public static String idOf(RollupGranularity granularity, String job, Instant bucket) {
+        return granularity + "/" + job + "/" + bucket;
+    }
+
+    // --- Getters and Setters ---
+
+    /**
+     * Gets the rollup ID; internal and not serialized.
+     * @return the ID
+     */
+    @JsonIgnore
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Sets the rollup ID.
+     * @param id the new ID
+     */
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    /**
+     * Gets the width of the time bucket.
+     * @return the granularity
+     */
+    public RollupGranularity getGranularity() {
+        return granularity;
+    }
+
+    /**
+     * Sets the width of the time bucket.
+     * @param granularity the new granularity
+     */
+    public void setGranularity(RollupGranularity granularity) {
+        this.granularity = granularity;
+    }
+
+    /**
+     * Gets the job title.
+     * @return the job
+     */
+    public String getJob() {
+        return job;
+    }
+
+    /**
+     * Sets the job title.
+     * @param job the new job
+     */
+    public void setJob(String job) {
+        this.job = job;
+    }
+
+    /**
+     * Gets the start of the time bucket.
+     * @return the bucket start
+     */
+    public Instant getBucket() {
+        return bucket;
+    }
+
+    /**
+     * Sets the start of the time bucket.
+     * @param bucket the new bucket start
+     */
+    public void setBucket(Instant bucket) {
+        this.bucket = bucket;
+    }
+
+    /**
+     * Gets the sum of the order totals.
+     * @return the total
+     */
+    public double getTotal() {
+        return total;
+    }
+
+    /**
+     * Sets the sum of the order totals.
+     * @param total the total value
+     */
+    public void setTotal(double total) {
+        this.total = total;
+    }
+
+    /**
+     * Gets the sum of the order discounts.
+     * @return the discount
+     */
+    public double getDiscount() {
+        return discount;
+    }
+
+    /**
+     * Sets the sum of the order discounts.
+     * @param discount the discount value
+     */
+    public void setDiscount(double discount) {
+        this.discount = discount;
+    }
+
+    /**
+     * Gets the number of orders.
+     * @return the order count
+     */
+    public long getOrderCount() {
+        return orderCount;
+    }
+
+    /**
+     * Sets the number of orders.
+     * @param orderCount the new order count
+     */
+    public void setOrderCount(long orderCount) {
+        this.orderCount = orderCount;
+    }
+
+    /**
+     * Gets when the rollup expires; internal and not serialized.
+     * @return the expiry time, or null if the rollup is kept
+     */
+    @JsonIgnore
+    public Instant getExpireAt() {
+        return expireAt;
+    }
+
+    /**
+     * Sets when the rollup expires.
+     * @param expireAt the expiry time, or null to keep the rollup
+     */
+    public void setExpireAt(Instant expireAt) {
+        this.expireAt = expireAt;
+    }
+
+    /**
+     * Returns a string representation of the rollup.
+     * @return a formatted string with the rollup figures
+     */
+    @Override
+    public String toString() {
+        return "JobSalesRollup{" +
+                "granularity=" + granularity +
+                ", job='" + job + '\'' +
+                ", bucket=" + bucket +
+                ", total=" + total +
+                ", discount=" + discount +
+                ", orderCount=" + orderCount +
+                '}';
+    }
+}
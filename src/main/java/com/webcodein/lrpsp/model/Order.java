@@ -1,13 +1,13 @@
 package com.webcodein.lrpsp.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import org.springframework.data.mongodb.core.mapping.Document;
 
-import java.util.UUID;
-
 /**
  * Represents an Order placed by a Customer, stored as a document in MongoDB.
  */
 @Document // Indicates that this class is a MongoDB document
+@JsonInclude(JsonInclude.Include.NON_NULL) // Fields left out of a projection are omitted from responses
 public class Order {
 
     private String id;           // Unique identifier for the order
@@ -22,14 +22,14 @@ public class Order {
     }
 
     /**
-     * Constructs a new Order with a generated ID, customer ID, total amount, and discount.
+     * Constructs a new Order with a customer ID, total amount, and discount.
+     * The ID is assigned by the configured key strategy when the order is first saved.
      *
      * @param customerId the ID of the customer placing the order
      * @param total      the total amount of the order
      * @param discount   the discount applied to the order
      */
     public Order(String customerId, Double total, Double discount) {
-        this.id = UUID.randomUUID().toString(); // Auto-generate a unique order ID
         this.customerId = customerId;
         this.total = total;
         this.discount = discount;
@@ -0,0 +1,53 @@
+package com.webcodein.lrpsp.model;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Width of the time buckets sales rollups are kept for.
+ * <p>
+ * Buckets are aligned on UTC boundaries: a bucket starts at the full minute, hour or day.
+ */
+public enum RollupGranularity {
+
+    MINUTE(ChronoUnit.MINUTES),
+    HOUR(ChronoUnit.HOURS),
+    DAY(ChronoUnit.DAYS);
+
+    private final ChronoUnit unit; // Unit the bucket start is truncated to
+
+    RollupGranularity(ChronoUnit unit) {
+        this.unit = unit;
+    }
+
+    /**
+     * Computes the start of the bucket containing an instant.
+     *
+     * @param instant the instant
+     * @return the start of its bucket
+     */
+    public Instant bucketOf(Instant instant) {
+        return instant.truncatedTo(unit);
+    }
+
+    /**
+     * Gets the width of a bucket.
+     *
+     * @return the bucket width
+     */
+    public Duration width() {
+        return unit.getDuration();
+    }
+
+    /**
+     * Counts the buckets overlapping a range.
+     *
+     * @param from the start of the range, inclusive
+     * @param to   the end of the range, exclusive
+     * @return the number of buckets between the bucket of {@code from} and {@code to}
+     */
+    public long bucketsBetween(Instant from, Instant to) {
+        return unit.between(bucketOf(from), to.minusNanos(1)) + 1;
+    }
+}
@@ -0,0 +1,130 @@
+package com.webcodein.lrpsp.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Represents the serialized sales sketches of one application instance, stored in MongoDB.
+ * <p>
+ * Every instance periodically replaces its own document with its current sketches, which cover the
+ * orders written through that instance. Approximate answers merge the documents of all instances.
+ */
+@Document // Marks this class as a MongoDB document
+public class SalesSketchState {
+
+    @Id
+    private String instanceId;              // The instance whose orders the sketches cover
+
+    private Instant updatedAt;              // When the sketches were last written
+    private byte[] distinctCustomers;       // HyperLogLog sketch of the customer IDs
+    private byte[] orderTotals;             // Quantile sketch of the order totals
+    private byte[] customerOrders;          // Count-Min sketch of the number of orders per customer
+    private List<String> heavyHitters;      // IDs of the customers with the highest estimated order counts
+
+    /**
+     * Default constructor needed for deserialization and frameworks.
+     */
+    public SalesSketchState() {
+    }
+
+    // --- Getters and Setters ---
+
+    /**
+     * Gets the instance ID.
+     * @return the instance ID
+     */
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    /**
+     * Sets the instance ID.
+     * @param instanceId the new instance ID
+     */
+    public void setInstanceId(String instanceId) {
+        this.instanceId = instanceId;
+    }
+
+    /**
+     * Gets when the sketches were last written.
+     * @return the update time
+     */
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    /**
+     * Sets when the sketches were last written.
+     * @param updatedAt the update time
+     */
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    /**
+     * Gets the serialized HyperLogLog sketch of the customer IDs.
+     * @return the serialized sketch
+     */
+    public byte[] getDistinctCustomers() {
+        return distinctCustomers;
+    }
+
+    /**
+     * Sets the serialized HyperLogLog sketch of the customer IDs.
+     * @param distinctCustomers the serialized sketch
+     */
+    public void setDistinctCustomers(byte[] distinctCustomers) {
+        this.distinctCustomers = distinctCustomers;
+    }
+
+    /**
+     * Gets the serialized quantile sketch of the order totals.
+     * @return the serialized sketch
+     */
+    public byte[] getOrderTotals() {
+        return orderTotals;
+    }
+
+    /**
+     * Sets the serialized quantile sketch of the order totals.
+     * @param orderTotals the serialized sketch
+     */
+    public void setOrderTotals(byte[] orderTotals) {
+        this.orderTotals = orderTotals;
+    }
+
+    /**
+     * Gets the serialized Count-Min sketch of the number of orders per customer.
+     * @return the serialized sketch
+     */
+    public byte[] getCustomerOrders() {
+        return customerOrders;
+    }
+
+    /**
+     * Sets the serialized Count-Min sketch of the number of orders per customer.
+     * @param customerOrders the serialized sketch
+     */
+    public void setCustomerOrders(byte[] customerOrders) {
+        this.customerOrders = customerOrders;
+    }
+
+    /**
+     * Gets the IDs of the heavy-hitter candidates.
+     * @return the customer IDs
+     */
+    public List<String> getHeavyHitters() {
+        return heavyHitters;
+    }
+
+    /**
+     * Sets the IDs of the heavy-hitter candidates.
+     * @param heavyHitters the customer IDs
+     */
+    public void setHeavyHitters(List<String> heavyHitters) {
+        this.heavyHitters = heavyHitters;
+    }
+}
@@ -1,14 +1,22 @@
 package com.webcodein.lrpsp.repository;
 
 import com.webcodein.lrpsp.model.Order;
-import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Flux;
 
 /**
  * Repository interface for managing {@link Order} entities.
  * <p>
- * Extends {@link MongoRepository} to provide basic CRUD operations and query method
+ * Extends {@link ReactiveMongoRepository} to provide non-blocking CRUD operations and query method
  * support for the Order collection in MongoDB.
  */
-public interface OrderRepository extends MongoRepository<Order, String> {
-    // Inherits standard CRUD operations: save, findById, findAll, deleteById, etc.
+public interface OrderRepository extends ReactiveMongoRepository<Order, String> {
+
+    /**
+     * Finds all orders placed by a customer. Served by the {@code customerId_total_discount} index.
+     *
+     * @param customerId the ID of the customer
+     * @return Flux emitting the customer's orders
+     */
+    Flux<Order> findByCustomerId(String customerId);
 }
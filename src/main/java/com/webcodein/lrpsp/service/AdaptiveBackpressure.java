@@ -0,0 +1,179 @@
+package com.webcodein.lrpsp.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Adaptive backpressure operator switching between buffering, sampling and dropping.
+ * <p>
+ * The operator requests from its source as fast as the source produces and tracks how many items are
+ * waiting for the downstream subscriber. While that occupancy stays below the high watermark every item
+ * is buffered. Above it, only one item out of {@code sampleRate} is kept; at capacity, items are dropped.
+ * Once the subscriber has caught up to the low watermark, every item is buffered again. The gap between
+ * the two watermarks keeps the operator from flapping between modes.
+ * <p>
+ * Applying the operator makes a stream lossy under pressure. It is therefore opt-in and meant for
+ * consumers that prefer fresh data over complete data, such as dashboards.
+ */
+@Service
+public class AdaptiveBackpressure {
+
+    /**
+     * How items are currently admitted into the buffer.
+     */
+    public enum Mode {
+        BUFFER, // Every item is kept
+        SAMPLE, // One item out of sampleRate is kept
+        DROP    // No item is kept
+    }
+
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;     // Whether the operator is applied at all
+    private final int lowWatermark;    // Occupancy at or below which every item is buffered again
+    private final int highWatermark;   // Occupancy from which items are sampled
+    private final int capacity;        // Occupancy from which items are dropped
+    private final int sampleRate;      // One item out of sampleRate is kept while sampling
+    private final Map<String, AtomicLong> occupancies = new ConcurrentHashMap<>(); // Buffered items per stream name
+
+    /**
+     * Constructor-based injection of the meter registry and the watermarks.
+     *
+     * @param meterRegistry the registry receiving the buffered and dropped counts
+     * @param enabled       whether the operator is applied; when disabled it leaves streams untouched
+     * @param lowWatermark  the occupancy at or below which every item is buffered again
+     * @param highWatermark the occupancy from which items are sampled
+     * @param capacity      the occupancy from which items are dropped
+     * @param sampleRate    one item out of this many is kept while sampling
+     */
+    public AdaptiveBackpressure(MeterRegistry meterRegistry,
+                                @Value("${backpressure.adaptive.enabled:false}") boolean enabled,
+                                @Value("${backpressure.adaptive.low-watermark:256}") int lowWatermark,
+                                @Value("${backpressure.adaptive.high-watermark:1024}") int highWatermark,
+                                @Value("${backpressure.adaptive.capacity:4096}") int capacity,
+                                @Value("${backpressure.adaptive.sample-rate:4}") int sampleRate) {
+        if (!(0 <= lowWatermark && lowWatermark < highWatermark && highWatermark < capacity) || sampleRate < 1) {
+            throw new IllegalArgumentException("Expected 0 <= low-watermark < high-watermark < capacity and sample-rate >= 1");
+        }
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.lowWatermark = lowWatermark;
+        this.highWatermark = highWatermark;
+        this.capacity = capacity;
+        this.sampleRate = sampleRate;
+    }
+
+    /**
+     * Builds the operator for a named stream, to be applied with {@link Flux#transform}.
+     * <p>
+     * Meters are tagged with the stream name: {@code backpressure.buffered} (current occupancy),
+     * {@code backpressure.items} with {@code outcome=delivered|sampled_out|dropped}.
+     *
+     * @param name the stream name used as the {@code flux} meter tag
+     * @param <T>  the element type
+     * @return the operator, or the identity when adaptive backpressure is disabled
+     */
+    public <T> Function<Flux<T>, Flux<T>> operator(String name) {
+        if (!enabled) {
+            return Function.identity();
+        }
+        AtomicLong occupancy = occupancies.computeIfAbsent(name, key -> {
+            AtomicLong value = new AtomicLong();
+            Gauge.builder("backpressure.buffered", value, AtomicLong::get)
+                    .description("Items waiting for a slow subscriber")
+                    .tag("flux", key)
+                    .register(meterRegistry);
+            return value;
+        });
+        Counter delivered = items(name, "delivered");
+        Counter sampledOut = items(name, "sampled_out");
+        Counter dropped = items(name, "dropped");
+
+        return source -> Flux.defer(() -> {
+            Admission admission = new Admission();
+            return source
+                    .filter(item -> {
+                        if (admission.admit()) {
+                            admission.buffered.incrementAndGet();
+                            occupancy.incrementAndGet();
+                            return true;
+                        }
+                        (admission.mode == Mode.SAMPLE ? sampledOut : dropped).increment();
+                        return false;
+                    })
+                    // Admission keeps occupancy below capacity, the hard bound is only a safety net
+                    .onBackpressureBuffer(capacity + 1, item -> {
+                        admission.buffered.decrementAndGet();
+                        occupancy.decrementAndGet();
+                        dropped.increment();
+                    }, BufferOverflowStrategy.DROP_LATEST)
+                    .doOnNext(item -> {
+                        admission.buffered.decrementAndGet();
+                        occupancy.decrementAndGet();
+                        delivered.increment();
+                    })
+                    .doFinally(signal -> occupancy.addAndGet(-admission.buffered.getAndSet(0)));
+        });
+    }
+
+    /**
+     * Registers the item counter of a stream with the given outcome.
+     *
+     * @param name    the stream name
+     * @param outcome the outcome tag value
+     * @return the registered counter
+     */
+    private Counter items(String name, String outcome) {
+        return Counter.builder("backpressure.items")
+                .description("Items passed through the adaptive backpressure operator")
+                .tag("flux", name)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Admission state of one subscription.
+     * <p>
+     * {@link #admit()} is only called from the source's serialized {@code onNext} signals, so the mode
+     * and the sampling counter need no synchronization; the occupancy is shared with the consumer side.
+     */
+    private final class Admission {
+
+        private final AtomicInteger buffered = new AtomicInteger(); // Items admitted but not yet delivered
+        private Mode mode = Mode.BUFFER;
+        private long sampled; // Items seen while sampling
+
+        /**
+         * Updates the mode from the current occupancy and decides whether the next item is kept.
+         *
+         * @return true if the item is buffered
+         */
+        private boolean admit() {
+            int occupancy = buffered.get();
+            if (occupancy >= capacity) {
+                mode = Mode.DROP;
+            } else if (occupancy >= highWatermark) {
+                mode = Mode.SAMPLE;
+            } else if (occupancy <= lowWatermark) {
+                mode = Mode.BUFFER;
+            } else if (mode == Mode.DROP) {
+                mode = Mode.SAMPLE; // Recovering, but not caught up yet
+            }
+            return switch (mode) {
+                case BUFFER -> true;
+                case SAMPLE -> sampled++ % sampleRate == 0;
+                case DROP -> false;
+            };
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.webcodein.lrpsp.service;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Count-Min sketch estimating how often each item occurs in a stream.
+ * <p>
+ * Every item increments one counter in each of {@code depth} rows, chosen by independent hashes
+ * derived from its 64-bit hash. An item's estimate is the smallest of its counters: it never
+ * undercounts, and overcounts by at most {@code e / width} of all counted occurrences with probability
+ * {@code 1 - e^-depth}. Memory is {@code depth * width} counters whatever the number of items. Sketches
+ * of the same dimensions are merged by adding their counters. Not thread-safe.
+ */
+public final class CountMinSketch {
+
+    private final int depth;        // Number of rows, each with its own hash
+    private final int width;        // Number of counters per row
+    private final long[] counters;  // Row-major counters
+
+    /**
+     * Creates an empty sketch.
+     *
+     * @param depth the number of rows
+     * @param width the number of counters per row
+     */
+    public CountMinSketch(int depth, int width) {
+        if (depth < 1 || width < 1) {
+            throw new IllegalArgumentException("Depth and width must be positive");
+        }
+        this.depth = depth;
+        this.width = width;
+        this.counters = new long[depth * width];
+    }
+
+    /**
+     * Counts occurrences of an item.
+     *
+     * @param hash  the 64-bit hash of the item, uniformly distributed
+     * @param count the number of occurrences to add
+     * @return the item's estimated count after the update
+     */
+    public long add(long hash, long count) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            int index = index(hash, row);
+            counters[index] += count;
+            estimate = Math.min(estimate, counters[index]);
+        }
+        return estimate;
+    }
+
+    /**
+     * Estimates how often an item occurred.
+     *
+     * @param hash the 64-bit hash of the item
+     * @return the estimated count, never lower than the actual count
+     */
+    public long estimate(long hash) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters[index(hash, row)]);
+        }
+        return estimate;
+    }
+
+    /**
+     * Adds the counts of another sketch to this one.
+     *
+     * @param other a sketch of the same dimensions
+     * @throws IllegalArgumentException if the dimensions differ
+     */
+    public void merge(CountMinSketch other) {
+        if (other.depth != depth || other.width != width) {
+            throw new IllegalArgumentException("Cannot merge sketches of different dimensions");
+        }
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] += other.counters[i];
+        }
+    }
+
+    /**
+     * Serializes the sketch.
+     *
+     * @return the depth and width followed by the counters
+     */
+    public byte[] toBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(8 + 8 * counters.length).putInt(depth).putInt(width);
+        buffer.asLongBuffer().put(counters);
+        return buffer.array();
+    }
+
+    /**
+     * Deserializes a sketch written by {@link #toBytes()}.
+     *
+     * @param bytes the serialized sketch
+     * @return the sketch
+     */
+    public static CountMinSketch fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        CountMinSketch sketch = new CountMinSketch(buffer.getInt(), buffer.getInt());
+        buffer.asLongBuffer().get(sketch.counters);
+        return sketch;
+    }
+
+    /**
+     * Selects the counter of an item in a row, by double hashing the two halves of its hash.
+     *
+     * @param hash the 64-bit hash of the item
+     * @param row  the row
+     * @return the index of the counter
+     */
+    private int index(long hash, int row) {
+        int combined = (int) hash + row * (int) (hash >>> 32);
+        return row * width + Math.floorMod(combined, width);
+    }
+}
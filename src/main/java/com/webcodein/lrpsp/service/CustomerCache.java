@@ -0,0 +1,148 @@
+package com.webcodein.lrpsp.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.webcodein.lrpsp.model.Customer;
+import jakarta.annotation.PreDestroy;
+import org.bson.BsonValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+
+/**
+ * Bounded, TTL-evicting read cache in front of customer lookups.
+ * <p>
+ * Entries are kept coherent with the database by a MongoDB change stream on the customer collection:
+ * inserts, updates and replacements refresh the cached entry, deletes and unknown events evict it.
+ * Change streams require a replica set; on a standalone server the stream keeps retrying in the
+ * background and entries are only bounded by their time-to-live and by local write-through.
+ */
+@Service
+public class CustomerCache {
+
+    private static final Logger log = LoggerFactory.getLogger(CustomerCache.class);
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+    private final KeyStrategy keyStrategy;
+    private final AsyncCache<String, Customer> cache;
+    private Disposable changeStream; // Active change stream subscription, if started
+
+    /**
+     * Constructor-based injection of ReactiveMongoTemplate, the key strategy and the cache bounds.
+     *
+     * @param reactiveMongoTemplate the reactive MongoDB template
+     * @param keyStrategy           the strategy converting stored customer keys in change events
+     * @param maximumSize           the maximum number of cached customers
+     * @param timeToLive            how long a customer stays cached after it was loaded or refreshed
+     */
+    public CustomerCache(ReactiveMongoTemplate reactiveMongoTemplate,
+                         KeyStrategy keyStrategy,
+                         @Value("${customer.cache.maximum-size:10000}") long maximumSize,
+                         @Value("${customer.cache.time-to-live:10m}") Duration timeToLive) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.keyStrategy = keyStrategy;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive)
+                .buildAsync();
+    }
+
+    /**
+     * Retrieves a customer by ID, loading it from MongoDB on a cache miss.
+     * <p>
+     * Concurrent misses for the same ID share a single query. Unknown IDs are not cached.
+     *
+     * @param customerId the ID of the customer
+     * @return Mono emitting the Customer object if found, otherwise empty
+     */
+    public Mono<Customer> find(String customerId) {
+        // Cancelling one caller must not cancel the load other callers are waiting on
+        return Mono.fromFuture(cache.get(customerId, (id, executor) -> load(id).toFuture()), true);
+    }
+
+    /**
+     * Stores a freshly written customer in the cache.
+     *
+     * @param customer the saved customer
+     */
+    public void put(Customer customer) {
+        cache.synchronous().put(customer.getId(), customer);
+    }
+
+    /**
+     * Starts following the customer collection's change stream once the application is ready.
+     * <p>
+     * On any stream error the whole cache is invalidated, since events may have been missed,
+     * and the stream is resubscribed with exponential backoff.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startChangeStream() {
+        changeStream = reactiveMongoTemplate.changeStream(Customer.class)
+                .watchCollection(Customer.class)
+                .listen()
+                .doOnNext(this::apply)
+                .doOnError(error -> {
+                    log.warn("Customer change stream failed, invalidating cache: {}", error.getMessage());
+                    cache.synchronous().invalidateAll();
+                })
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofMinutes(1)))
+                .subscribe();
+    }
+
+    /**
+     * Stops the change stream subscription on shutdown.
+     */
+    @PreDestroy
+    public void stopChangeStream() {
+        if (changeStream != null) {
+            changeStream.dispose();
+        }
+    }
+
+    /**
+     * Applies a change stream event to the cache.
+     *
+     * @param event the change event on the customer collection
+     */
+    private void apply(ChangeStreamEvent<Customer> event) {
+        Customer customer = event.getBody();
+        if (customer != null && customer.getId() != null) {
+            // insert, replace, and updates with a full document carry the new state
+            cache.synchronous().put(customer.getId(), customer);
+            return;
+        }
+        if (event.getRaw() == null || event.getRaw().getDocumentKey() == null) {
+            // drop, rename, invalidate: nothing identifies a single customer any more
+            cache.synchronous().invalidateAll();
+            return;
+        }
+        BsonValue key = event.getRaw().getDocumentKey().get("_id");
+        if (key != null) {
+            cache.synchronous().invalidate(keyStrategy.toExternal(key));
+        }
+    }
+
+    /**
+     * Loads a customer from MongoDB.
+     *
+     * @param customerId the ID of the customer
+     * @return Mono emitting the Customer object if found, otherwise empty
+     */
+    private Mono<Customer> load(String customerId) {
+        Criteria criteria = Criteria.where("id").is(customerId);
+        Query query = new Query(criteria);
+        return reactiveMongoTemplate.findOne(query, Customer.class);
+    }
+}
@@ -0,0 +1,108 @@
+package com.webcodein.lrpsp.service;
+
+import com.webcodein.lrpsp.model.Customer;
+import com.webcodein.lrpsp.model.CustomerPage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Service listing customers in ID order.
+ * <p>
+ * Pages are addressed by keyset (seek) pagination: a page starts right after the last ID of the
+ * previous one, which the {@code _id} index resolves in constant time however deep the page is,
+ * unlike skip/limit offsets.
+ */
+@Service
+public class CustomerListingService {
+
+    /**
+     * Customer fields a client may select; the ID is always returned.
+     */
+    public static final Set<String> FIELDS = Set.of("name", "job");
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+    private final int maxPageSize;      // Upper bound for a requested page size
+    private final int streamBatchSize;  // Documents fetched per cursor batch when streaming
+
+    /**
+     * Constructor-based injection of ReactiveMongoTemplate and the listing limits.
+     *
+     * @param reactiveMongoTemplate the reactive MongoDB template
+     * @param maxPageSize           the upper bound for a requested page size
+     * @param streamBatchSize       the number of documents fetched per cursor batch when streaming
+     */
+    public CustomerListingService(ReactiveMongoTemplate reactiveMongoTemplate,
+                                  @Value("${customers.page.max-size:1000}") int maxPageSize,
+                                  @Value("${customers.stream.batch-size:500}") int streamBatchSize) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.maxPageSize = maxPageSize;
+        this.streamBatchSize = streamBatchSize;
+    }
+
+    /**
+     * Fetches one page of customers.
+     *
+     * @param after  the last ID of the previous page, or null for the first page
+     * @param size   the requested page size, capped at the configured maximum
+     * @param fields comma-separated fields to return, or null for all fields
+     * @return Mono emitting the page and the cursor of the next one
+     */
+    public Mono<CustomerPage> findPage(String after, int size, String fields) {
+        int pageSize = Math.max(1, Math.min(size, maxPageSize));
+        Query query = FieldProjection.apply(keysetQuery(after), fields, FIELDS)
+                .limit(pageSize);
+
+        return reactiveMongoTemplate.find(query, Customer.class)
+                .collectList()
+                .map(customers -> new CustomerPage(customers, nextCursor(customers, pageSize)));
+    }
+
+    /**
+     * Streams all customers after the given ID from a single cursor.
+     * <p>
+     * The cursor fetches a fixed number of documents per batch and is only advanced as fast
+     * as the client consumes.
+     *
+     * @param after  the ID to start after, or null to start from the beginning
+     * @param fields comma-separated fields to return, or null for all fields
+     * @return Flux emitting the customers in ID order
+     */
+    public Flux<Customer> stream(String after, String fields) {
+        Query query = FieldProjection.apply(keysetQuery(after), fields, FIELDS)
+                .cursorBatchSize(streamBatchSize);
+
+        return reactiveMongoTemplate.find(query, Customer.class)
+                .limitRate(streamBatchSize);
+    }
+
+    /**
+     * Builds the query selecting customers after the given ID, in ID order.
+     *
+     * @param after the ID to start after, or null to start from the beginning
+     * @return the keyset query
+     */
+    private static Query keysetQuery(String after) {
+        Query query = after == null ? new Query() : Query.query(Criteria.where("id").gt(after));
+        return query.with(Sort.by(Sort.Direction.ASC, "id"));
+    }
+
+    /**
+     * Determines the cursor of the next page.
+     *
+     * @param customers the customers of the current page
+     * @param pageSize  the page size
+     * @return the last ID of a full page, or null when this was the last page
+     */
+    private static String nextCursor(List<Customer> customers, int pageSize) {
+        return customers.size() < pageSize ? null : customers.get(customers.size() - 1).getId();
+    }
+}
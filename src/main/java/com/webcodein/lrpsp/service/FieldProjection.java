@@ -0,0 +1,45 @@
+package com.webcodein.lrpsp.service;
+
+import org.springframework.data.mongodb.core.query.Field;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Set;
+
+/**
+ * Pushes a client-requested field selection down into a MongoDB query projection.
+ * <p>
+ * Only the selected fields (plus the ID, which is always returned) are read from the server,
+ * so unrequested fields are never transferred nor mapped.
+ */
+public final class FieldProjection {
+
+    private FieldProjection() {
+    }
+
+    /**
+     * Restricts the query to the requested fields.
+     *
+     * @param query         the query to restrict
+     * @param fields        comma-separated field names, or null/blank to return every field
+     * @param allowedFields the fields a client may select
+     * @return the same query, for chaining
+     * @throws ResponseStatusException with {@code 400 Bad Request} if an unknown field is requested
+     */
+    public static Query apply(Query query, String fields, Set<String> allowedFields) {
+        if (fields == null || fields.isBlank()) {
+            return query;
+        }
+        Field projection = query.fields();
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (!allowedFields.contains(name)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Unknown field '" + name + "', expected one of " + allowedFields);
+            }
+            projection.include(name);
+        }
+        return query;
+    }
+}
@@ -0,0 +1,208 @@
+package com.webcodein.lrpsp.service;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.webcodein.lrpsp.model.Customer;
+import com.webcodein.lrpsp.model.IngestResult;
+import com.webcodein.lrpsp.model.Order;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Service writing streams of customers and orders in bulk.
+ * <p>
+ * Incoming documents are grouped into chunks that close on size or after a time window, whichever
+ * comes first. Each chunk is written with one unordered bulk insert, so a failing document does not
+ * prevent the rest of its chunk from being written. One {@link IngestResult} is emitted per document,
+ * in submission order.
+ */
+@Service
+public class IngestService {
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+    private final List<OrderWriteListener> orderWriteListeners;
+    private final CustomerCache customerCache;
+    private final KeyStrategy keyStrategy;
+    private final MeterRegistry meterRegistry;
+    private final int chunkSize;         // Maximum number of documents per bulk write
+    private final Duration chunkWindow;  // Maximum time a document waits for its chunk to fill up
+    private final int concurrency;       // Number of bulk writes in flight per request
+
+    /**
+     * Constructor-based injection of the template, the services kept in sync and the chunking settings.
+     *
+     * @param reactiveMongoTemplate the reactive MongoDB template
+     * @param orderWriteListeners   the listeners maintaining data derived from orders (totals, rollups, sketches)
+     * @param customerCache         the read cache in front of customer lookups
+     * @param keyStrategy           the strategy generating missing customer and order keys
+     * @param meterRegistry         the registry counting order write listener failures
+     * @param chunkSize             the maximum number of documents per bulk write
+     * @param chunkWindow           the maximum time a document waits for its chunk to fill up
+     * @param concurrency           the number of bulk writes in flight per request
+     */
+    public IngestService(ReactiveMongoTemplate reactiveMongoTemplate,
+                         List<OrderWriteListener> orderWriteListeners,
+                         CustomerCache customerCache,
+                         KeyStrategy keyStrategy,
+                         MeterRegistry meterRegistry,
+                         @Value("${ingest.chunk-size:500}") int chunkSize,
+                         @Value("${ingest.chunk-window:100ms}") Duration chunkWindow,
+                         @Value("${ingest.concurrency:2}") int concurrency) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.orderWriteListeners = orderWriteListeners;
+        this.customerCache = customerCache;
+        this.keyStrategy = keyStrategy;
+        this.meterRegistry = meterRegistry;
+        this.chunkSize = chunkSize;
+        this.chunkWindow = chunkWindow;
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * Writes a stream of customers and caches the ones that were written.
+     *
+     * @param customers the customers to create
+     * @return Flux emitting one result per customer, in submission order
+     */
+    public Flux<IngestResult> ingestCustomers(Flux<Customer> customers) {
+        return customers
+                .doOnNext(customer -> {
+                    if (customer.getId() == null) {
+                        customer.setId(keyStrategy.nextId());
+                    }
+                })
+                .bufferTimeout(chunkSize, chunkWindow, true)
+                .flatMapSequential(chunk -> insertChunk(chunk, Customer.class)
+                                .flatMapIterable(failures -> {
+                                    List<IngestResult> results = results(chunk, failures, Customer::getId);
+                                    written(chunk, failures).forEach(customerCache::put);
+                                    return results;
+                                }),
+                        concurrency);
+    }
+
+    /**
+     * Writes a stream of orders and passes the ones that were written to the order write listeners.
+     *
+     * @param orders the orders to create
+     * @return Flux emitting one result per order, in submission order
+     */
+    public Flux<IngestResult> ingestOrders(Flux<Order> orders) {
+        return orders
+                .doOnNext(order -> {
+                    if (order.getId() == null) {
+                        order.setId(keyStrategy.nextId());
+                    }
+                })
+                .bufferTimeout(chunkSize, chunkWindow, true)
+                .flatMapSequential(chunk -> writeOrders(chunk).flatMapIterable(results -> results), concurrency);
+    }
+
+    /**
+     * Writes a chunk of orders with a single unordered bulk insert and passes the ones that were
+     * written to the order write listeners (materialized totals, rollups, sketches).
+     *
+     * @param chunk the orders to write, each with an ID assigned
+     * @return Mono emitting one result per order, in chunk order
+     */
+    public Mono<List<IngestResult>> writeOrders(List<Order> chunk) {
+        return insertChunk(chunk, Order.class)
+                .flatMap(failures -> OrderWriteListener.notifyAll(orderWriteListeners, written(chunk, failures), meterRegistry)
+                        .thenReturn(results(chunk, failures, Order::getId)));
+    }
+
+    /**
+     * Writes a chunk with a single unordered bulk insert.
+     *
+     * @param chunk the documents to insert
+     * @param type  the mapped entity type
+     * @param <T>   the entity type
+     * @return Mono emitting the failure reason of every document that was not written, keyed by its index in the chunk
+     */
+    private <T> Mono<Map<Integer, String>> insertChunk(List<T> chunk, Class<T> type) {
+        return reactiveMongoTemplate.bulkOps(BulkMode.UNORDERED, type)
+                .insert(chunk)
+                .execute()
+                .map(result -> Map.<Integer, String>of())
+                .onErrorResume(error -> Mono.just(failures(chunk, error)));
+    }
+
+    /**
+     * Maps a bulk write error to per-document failures.
+     * <p>
+     * Write errors report the index of every rejected document; any other error fails the whole chunk.
+     *
+     * @param chunk the documents of the failed write
+     * @param error the error raised by the bulk write
+     * @return the failure reason of every document that was not written, keyed by its index in the chunk
+     */
+    private static Map<Integer, String> failures(List<?> chunk, Throwable error) {
+        MongoBulkWriteException bulkError = error instanceof MongoBulkWriteException direct ? direct
+                : error.getCause() instanceof MongoBulkWriteException cause ? cause
+                : null;
+
+        Map<Integer, String> failures = new HashMap<>();
+        if (bulkError != null) {
+            for (BulkWriteError writeError : bulkError.getWriteErrors()) {
+                failures.put(writeError.getIndex(), writeError.getMessage());
+            }
+        } else {
+            for (int i = 0; i < chunk.size(); i++) {
+                failures.put(i, error.getMessage());
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * Builds the per-document results of a chunk.
+     *
+     * @param chunk    the documents of the chunk
+     * @param failures the failure reasons keyed by index in the chunk
+     * @param idOf     extracts the ID of a document
+     * @param <T>      the entity type
+     * @return one result per document, in chunk order
+     */
+    private static <T> List<IngestResult> results(List<T> chunk, Map<Integer, String> failures, Function<T, String> idOf) {
+        List<IngestResult> results = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            String id = idOf.apply(chunk.get(i));
+            String failure = failures.get(i);
+            results.add(failure == null ? IngestResult.success(id) : IngestResult.failure(id, failure));
+        }
+        return results;
+    }
+
+    /**
+     * Selects the documents of a chunk that were written.
+     *
+     * @param chunk    the documents of the chunk
+     * @param failures the failure reasons keyed by index in the chunk
+     * @param <T>      the entity type
+     * @return the written documents
+     */
+    private static <T> List<T> written(List<T> chunk, Map<Integer, String> failures) {
+        if (failures.isEmpty()) {
+            return chunk;
+        }
+        List<T> written = new ArrayList<>(chunk.size() - failures.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            if (!failures.containsKey(i)) {
+                written.add(chunk.get(i));
+            }
+        }
+        return written;
+    }
+}
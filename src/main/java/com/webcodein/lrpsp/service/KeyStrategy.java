@@ -0,0 +1,221 @@
+package com.webcodein.lrpsp.service;
+
+import org.bson.BsonValue;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.convert.MongoConversionContext;
+import org.springframework.data.mongodb.core.convert.MongoValueConverter;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Generates customer and order keys and converts them between their API and storage forms.
+ * <p>
+ * Keys are always strings in the domain model and on the REST API. How they are generated and
+ * stored depends on the configured {@link Type}: compact, time-ordered keys keep indexes dense and
+ * make inserts append to the right-hand side of the B-tree instead of splitting random pages.
+ * <p>
+ * As a Spring Data value converter, this class maps key properties to their storage form in
+ * documents and queries, and back to strings when reading. Any stored form is read back, so
+ * documents written under a previous strategy stay readable; queries only match keys stored in the
+ * current form.
+ */
+@Service
+public class KeyStrategy implements MongoValueConverter<Object, Object> {
+
+    /**
+     * How keys are generated and stored.
+     */
+    public enum Type {
+        STRING,   // Random UUID, stored as its 36-character string
+        UUID,     // Time-ordered UUIDv7, stored as a 16-byte BSON binary (subtype 4)
+        OBJECT_ID // Time-ordered ObjectId, stored as a 12-byte BSON ObjectId
+    }
+
+    private final Type type;
+
+    /**
+     * Constructor-based injection of the key type.
+     *
+     * @param type how keys are generated and stored
+     */
+    public KeyStrategy(@Value("${keys.type:STRING}") Type type) {
+        this.type = type;
+    }
+
+    /**
+     * Gets the configured key type.
+     *
+     * @return the key type
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Tells whether generated keys follow creation time, so that their leading bytes are not uniformly spread.
+     *
+     * @return true for UUIDv7 and ObjectId keys
+     */
+    public boolean isTimeOrdered() {
+        return type != Type.STRING;
+    }
+
+    /**
+     * Generates a new key.
+     *
+     * @return the key in its API form
+     */
+    public String nextId() {
+        return switch (type) {
+            case STRING -> UUID.randomUUID().toString();
+            case UUID -> uuidV7(System.currentTimeMillis()).toString();
+            case OBJECT_ID -> new ObjectId().toHexString();
+        };
+    }
+
+    /**
+     * Converts a key to the form it is stored in.
+     * <p>
+     * Strings that are not valid in the configured form (e.g. keys written under a previous strategy)
+     * are stored unchanged.
+     *
+     * @param key the key in its API form
+     * @return the key as a String, UUID or ObjectId
+     */
+    public Object toStored(String key) {
+        return switch (type) {
+            case STRING -> key;
+            case UUID -> isUuid(key) ? UUID.fromString(key) : key;
+            case OBJECT_ID -> ObjectId.isValid(key) ? new ObjectId(key) : key;
+        };
+    }
+
+    /**
+     * Converts a stored key back to its API form, whatever strategy it was written with.
+     *
+     * @param stored the key as a String, UUID, ObjectId or raw BSON value
+     * @return the key as a string, or null for a null key
+     */
+    public String toExternal(Object stored) {
+        if (stored instanceof BsonValue bson) {
+            if (bson.isString()) {
+                return bson.asString().getValue();
+            }
+            if (bson.isObjectId()) {
+                return bson.asObjectId().getValue().toHexString();
+            }
+            if (bson.isBinary() && bson.asBinary().getData().length == 16) {
+                return bson.asBinary().asUuid().toString();
+            }
+        }
+        return switch (stored) {
+            case null -> null;
+            case ObjectId objectId -> objectId.toHexString();
+            default -> stored.toString(); // String and UUID
+        };
+    }
+
+    /**
+     * Splits the keys between two keys into ranges of equal width over their leading 64 bits.
+     * <p>
+     * Time-ordered keys are spread over their creation times rather than uniformly, so range
+     * boundaries are interpolated between the smallest and the largest existing key.
+     *
+     * @param first the smallest existing key
+     * @param last  the largest existing key
+     * @param count the number of ranges
+     * @return the {@code count - 1} inner boundaries in stored form, in key order
+     * @throws IllegalStateException if keys are not time-ordered
+     */
+    public List<Object> boundaries(String first, String last, int count) {
+        if (!isTimeOrdered()) {
+            throw new IllegalStateException("Random string keys are partitioned by their hex prefix");
+        }
+        long lower = leadingBits(toStored(first));
+        long upper = leadingBits(toStored(last));
+        long width = Math.max(upper - lower, 0) / count;
+        List<Object> boundaries = new ArrayList<>(count - 1);
+        for (int i = 1; i < count; i++) {
+            long bits = lower + width * i;
+            boundaries.add(type == Type.OBJECT_ID
+                    ? new ObjectId(ByteBuffer.allocate(12).putLong(bits).array())
+                    : new UUID(bits, 0));
+        }
+        return boundaries;
+    }
+
+    /**
+     * Reads a stored key into its API form; used by Spring Data when mapping documents.
+     *
+     * @param value   the stored key
+     * @param context the conversion context
+     * @return the key as a string
+     */
+    @Override
+    public Object read(Object value, MongoConversionContext context) {
+        return toExternal(value);
+    }
+
+    /**
+     * Writes a key into its stored form; used by Spring Data when mapping entities and queries.
+     *
+     * @param value   the key, already converted values are passed through
+     * @param context the conversion context
+     * @return the key in stored form
+     */
+    @Override
+    public Object write(Object value, MongoConversionContext context) {
+        return value instanceof String key ? toStored(key) : value;
+    }
+
+    /**
+     * Builds a UUIDv7: a 48-bit millisecond timestamp followed by random bits.
+     *
+     * @param epochMillis the creation time
+     * @return the UUID
+     */
+    static UUID uuidV7(long epochMillis) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long mostSigBits = epochMillis << 16 | 0x7000 | random.nextInt(0x1000);          // version 7
+        long leastSigBits = random.nextLong() & 0x3FFFFFFFFFFFFFFFL | 0x8000000000000000L; // IETF variant
+        return new UUID(mostSigBits, leastSigBits);
+    }
+
+    /**
+     * Tells whether a string is a UUID in its canonical 36-character form.
+     *
+     * @param key the key to check
+     * @return true if the key parses as a UUID
+     */
+    private static boolean isUuid(String key) {
+        if (key.length() != 36) {
+            return false;
+        }
+        try {
+            UUID.fromString(key);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Extracts the leading 64 bits of a stored time-ordered key.
+     *
+     * @param stored the key as a UUID or ObjectId
+     * @return the leading bits, or 0 for keys of another form
+     */
+    private static long leadingBits(Object stored) {
+        return switch (stored) {
+            case UUID uuid -> uuid.getMostSignificantBits();
+            case ObjectId objectId -> ByteBuffer.wrap(objectId.toByteArray()).getLong();
+            default -> 0;
+        };
+    }
+}
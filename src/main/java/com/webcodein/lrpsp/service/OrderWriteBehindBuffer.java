@@ -0,0 +1,237 @@
+package com.webcodein.lrpsp.service;
+
+import com.webcodein.lrpsp.model.IngestResult;
+import com.webcodein.lrpsp.model.Order;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.Disposable;
+import reactor.core.observability.micrometer.Micrometer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Opt-in write-behind buffer for order creation.
+ * <p>
+ * When enabled, orders are acknowledged as soon as they are accepted into a bounded in-memory buffer
+ * and are written later in coalesced bulk inserts by a dedicated drain scheduler. The durability
+ * policy is set by two thresholds: the buffer is flushed as soon as it holds {@code flushSize} orders
+ * (flush-on-size) and at least every {@code flushInterval} (flush-on-time). When the buffer is full,
+ * new orders are rejected with {@code 429 Too Many Requests}.
+ * <p>
+ * Acknowledged orders that are still buffered are lost if the process crashes; on a graceful
+ * shutdown the buffer is flushed.
+ */
+@Service
+public class OrderWriteBehindBuffer {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderWriteBehindBuffer.class);
+
+    private final IngestService ingestService;
+    private final KeyStrategy keyStrategy;
+    private final boolean enabled;          // Whether orders go through the buffer at all
+    private final int flushSize;            // Number of buffered orders that triggers a flush, and maximum flush batch size
+    private final Duration flushInterval;   // Maximum time an order stays buffered
+    private final BlockingQueue<Order> buffer;
+    private final Scheduler drainScheduler; // Single thread running the flushes, timed as orders.write_behind.scheduler.* meters
+    private final AtomicBoolean draining = new AtomicBoolean(); // Guards against overlapping drains
+
+    private final Timer flushLatency;
+    private final DistributionSummary flushBatchSize;
+    private final Counter rejected;
+    private final Counter failed;
+
+    private Disposable timer; // Periodic flush, if started
+
+    /**
+     * Constructor-based injection of the ingest service, the key strategy, the meter registry and the buffer settings.
+     *
+     * @param ingestService  the service writing order chunks
+     * @param keyStrategy    the strategy generating order keys
+     * @param meterRegistry  the registry receiving the buffer metrics
+     * @param enabled        whether orders go through the buffer
+     * @param capacity       the maximum number of buffered orders
+     * @param flushSize      the number of buffered orders that triggers a flush
+     * @param flushInterval  the maximum time an order stays buffered
+     */
+    public OrderWriteBehindBuffer(IngestService ingestService,
+                                  KeyStrategy keyStrategy,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${orders.write-behind.enabled:false}") boolean enabled,
+                                  @Value("${orders.write-behind.capacity:10000}") int capacity,
+                                  @Value("${orders.write-behind.flush-size:500}") int flushSize,
+                                  @Value("${orders.write-behind.flush-interval:200ms}") Duration flushInterval) {
+        this.ingestService = ingestService;
+        this.keyStrategy = keyStrategy;
+        this.enabled = enabled;
+        this.flushSize = flushSize;
+        this.flushInterval = flushInterval;
+        this.buffer = new ArrayBlockingQueue<>(capacity);
+        this.drainScheduler = Micrometer.timedScheduler(
+                Schedulers.newSingle("order-write-behind"), meterRegistry, "orders.write_behind.scheduler");
+
+        Gauge.builder("orders.write_behind.buffer.depth", buffer, BlockingQueue::size)
+                .description("Number of acknowledged orders waiting to be written")
+                .register(meterRegistry);
+        this.flushLatency = Timer.builder("orders.write_behind.flush.latency")
+                .description("Time taken to write one flush batch")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.flushBatchSize = DistributionSummary.builder("orders.write_behind.flush.batch.size")
+                .description("Number of orders written per flush")
+                .baseUnit("orders")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("orders.write_behind.rejected")
+                .description("Orders rejected because the buffer was full")
+                .register(meterRegistry);
+        this.failed = Counter.builder("orders.write_behind.failed")
+                .description("Acknowledged orders that could not be written")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Tells whether order creation goes through the write-behind buffer.
+     *
+     * @return true when write-behind is enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Accepts an order into the buffer.
+     * <p>
+     * An ID is assigned if the order has none, so the acknowledged order can be referenced right away.
+     *
+     * @param order the order to create
+     * @return Mono emitting the accepted order, or failing with {@code 429 Too Many Requests} when the buffer is full
+     */
+    public Mono<Order> enqueue(Order order) {
+        return Mono.fromCallable(() -> {
+            if (order.getId() == null) {
+                order.setId(keyStrategy.nextId());
+            }
+            if (!buffer.offer(order)) {
+                rejected.increment();
+                throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Order buffer is full");
+            }
+            if (buffer.size() >= flushSize) {
+                requestDrain(false); // flush-on-size
+            }
+            return order;
+        });
+    }
+
+    /**
+     * Starts the periodic flush once the application is ready, if write-behind is enabled.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (enabled) {
+            timer = Flux.interval(flushInterval, flushInterval, drainScheduler)
+                    .subscribe(tick -> requestDrain(true)); // flush-on-time
+        }
+    }
+
+    /**
+     * Stops the periodic flush and writes whatever is still buffered.
+     */
+    @PreDestroy
+    public void stop() {
+        if (timer != null) {
+            timer.dispose();
+        }
+        drain(true).block(Duration.ofSeconds(30));
+        drainScheduler.dispose();
+    }
+
+    /**
+     * Schedules a drain on the drain scheduler unless one is already running.
+     *
+     * @param includePartial whether a batch smaller than {@code flushSize} is written as well
+     */
+    private void requestDrain(boolean includePartial) {
+        if (draining.compareAndSet(false, true)) {
+            drain(includePartial)
+                    .subscribeOn(drainScheduler)
+                    .doFinally(signal -> draining.set(false))
+                    .subscribe();
+        }
+    }
+
+    /**
+     * Writes buffered orders in batches of at most {@code flushSize} until the buffer holds less than
+     * a full batch, or is empty when {@code includePartial} is set.
+     *
+     * @param includePartial whether a batch smaller than {@code flushSize} is written as well
+     * @return Mono completing once the buffer has been drained
+     */
+    private Mono<Void> drain(boolean includePartial) {
+        return Mono.fromSupplier(this::takeBatch)
+                .filter(batch -> !batch.isEmpty())
+                .flatMap(this::flush)
+                .repeat(() -> buffer.size() >= flushSize || (includePartial && !buffer.isEmpty()))
+                .then();
+    }
+
+    /**
+     * Removes up to {@code flushSize} orders from the buffer.
+     *
+     * @return the removed orders, possibly none
+     */
+    private List<Order> takeBatch() {
+        List<Order> batch = new ArrayList<>(Math.min(flushSize, buffer.size()));
+        buffer.drainTo(batch, flushSize);
+        return batch;
+    }
+
+    /**
+     * Writes one batch with a coalesced bulk insert.
+     * <p>
+     * Orders that cannot be written are counted and logged; they have already been acknowledged.
+     *
+     * @param batch the orders to write
+     * @return Mono completing once the batch is written or given up on
+     */
+    private Mono<Void> flush(List<Order> batch) {
+        long start = System.nanoTime();
+        return ingestService.writeOrders(batch)
+                .doOnNext(results -> {
+                    flushLatency.record(Duration.ofNanos(System.nanoTime() - start));
+                    flushBatchSize.record(batch.size());
+                    long failures = results.stream().filter(result -> !result.isSuccess()).count();
+                    if (failures > 0) {
+                        failed.increment(failures);
+                        log.warn("{} of {} buffered orders could not be written: {}", failures, batch.size(),
+                                results.stream().filter(result -> !result.isSuccess()).findFirst()
+                                        .map(IngestResult::getError).orElse(""));
+                    }
+                })
+                .onErrorResume(error -> {
+                    failed.increment(batch.size());
+                    log.error("Could not write {} buffered orders", batch.size(), error);
+                    return Mono.empty();
+                })
+                .then();
+    }
+}
@@ -0,0 +1,52 @@
+package com.webcodein.lrpsp.service;
+
+import com.webcodein.lrpsp.model.Order;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Receives orders once they have been written, to keep derived data such as totals and rollups up to date.
+ * <p>
+ * Every write path (single order creation, bulk ingestion and the write-behind buffer) notifies all
+ * listeners with the orders that were actually written.
+ */
+public interface OrderWriteListener {
+
+    /**
+     * Adds written orders to the derived data.
+     *
+     * @param orders the written orders
+     * @return Mono completing once the derived data is updated
+     */
+    Mono<Void> ordersWritten(List<Order> orders);
+
+    /**
+     * Notifies every listener of written orders, concurrently.
+     * <p>
+     * The orders are already stored, so a failing listener must not fail the write: a client retrying
+     * it would create duplicates. Failures are logged and counted as {@code orders.listener.failures},
+     * tagged with the listener; the derived data can be repaired afterwards (e.g. with
+     * {@link SalesTotalsStore#rebuild()}).
+     *
+     * @param listeners     the listeners to notify
+     * @param orders        the written orders
+     * @param meterRegistry the registry receiving the failure counter
+     * @return Mono completing once every listener is done, never failing
+     */
+    static Mono<Void> notifyAll(List<OrderWriteListener> listeners, List<Order> orders, MeterRegistry meterRegistry) {
+        return Flux.fromIterable(listeners)
+                .flatMap(listener -> listener.ordersWritten(orders)
+                        .onErrorResume(error -> {
+                            String name = listener.getClass().getSimpleName();
+                            LoggerFactory.getLogger(listener.getClass())
+                                    .warn("Could not add {} written orders to {}", orders.size(), name, error);
+                            meterRegistry.counter("orders.listener.failures", "listener", name).increment(orders.size());
+                            return Mono.empty();
+                        }))
+                .then();
+    }
+}
@@ -0,0 +1,164 @@
+package com.webcodein.lrpsp.service;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Quantile sketch over positive values with a bounded relative error, in the style of DDSketch.
+ * <p>
+ * Values are counted in logarithmic buckets whose bounds grow by a factor of
+ * {@code (1 + accuracy) / (1 - accuracy)}, so any quantile is answered within {@code accuracy} of the
+ * actual value, relative to it. The buckets cover a fixed value range, and values outside it are
+ * clamped to its bounds; memory is therefore fixed whatever the number of values, e.g. about 10 KB for
+ * 1% accuracy between 0.01 and 10^9. Sketches of the same settings are merged by adding their bucket
+ * counts. Not thread-safe.
+ */
+public final class QuantileSketch {
+
+    private final double accuracy;  // Maximum relative error of a quantile
+    private final double minValue;  // Values up to this bound share the lowest bucket
+    private final double maxValue;  // Values from this bound share the highest bucket
+    private final double logGamma;  // Natural logarithm of the bucket growth factor
+    private final int offset;       // Bucket index of minValue
+    private final long[] counts;    // Number of values per bucket
+    private long count;             // Number of values added
+    private double min = Double.POSITIVE_INFINITY; // Smallest value added
+    private double max = Double.NEGATIVE_INFINITY; // Largest value added
+
+    /**
+     * Creates an empty sketch.
+     *
+     * @param accuracy the maximum relative error of a quantile, between 0 and 1 exclusive
+     * @param minValue the smallest value told apart from smaller ones, positive
+     * @param maxValue the largest value told apart from larger ones
+     */
+    public QuantileSketch(double accuracy, double minValue, double maxValue) {
+        if (accuracy <= 0 || accuracy >= 1 || minValue <= 0 || maxValue <= minValue) {
+            throw new IllegalArgumentException("Expected 0 < accuracy < 1 and 0 < minValue < maxValue");
+        }
+        this.accuracy = accuracy;
+        this.minValue = minValue;
+        this.maxValue = maxValue;
+        this.logGamma = Math.log((1 + accuracy) / (1 - accuracy));
+        this.offset = rawIndex(minValue);
+        this.counts = new long[rawIndex(maxValue) - offset + 1];
+    }
+
+    /**
+     * Adds a value.
+     *
+     * @param value the value; values outside the covered range are clamped to it, NaN is ignored
+     */
+    public void add(double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        counts[index(value)]++;
+        count++;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Estimates a quantile of the added values.
+     *
+     * @param quantile the quantile, between 0 and 1
+     * @return the estimated value, or NaN if nothing was added
+     */
+    public double quantile(double quantile) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        long rank = (long) (Math.min(Math.max(quantile, 0), 1) * (count - 1));
+        long seen = 0;
+        int bucket = 0;
+        while (bucket < counts.length - 1) {
+            seen += counts[bucket];
+            if (seen > rank) {
+                break;
+            }
+            bucket++;
+        }
+        // The bucket midpoint is within the relative accuracy of every value in the bucket
+        double value = 2 * Math.exp((bucket + offset) * logGamma) / (1 + Math.exp(logGamma));
+        return Math.min(Math.max(value, min), max);
+    }
+
+    /**
+     * Gets the number of values added.
+     *
+     * @return the count
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Adds the values of another sketch to this one.
+     *
+     * @param other a sketch of the same settings
+     * @throws IllegalArgumentException if the settings differ
+     */
+    public void merge(QuantileSketch other) {
+        if (other.accuracy != accuracy || other.minValue != minValue || other.maxValue != maxValue) {
+            throw new IllegalArgumentException("Cannot merge sketches of different settings");
+        }
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Serializes the sketch.
+     *
+     * @return the settings, the count, the extremes and the bucket counts
+     */
+    public byte[] toBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(6 * 8 + 8 * counts.length)
+                .putDouble(accuracy).putDouble(minValue).putDouble(maxValue)
+                .putLong(count).putDouble(min).putDouble(max);
+        buffer.asLongBuffer().put(counts);
+        return buffer.array();
+    }
+
+    /**
+     * Deserializes a sketch written by {@link #toBytes()}.
+     *
+     * @param bytes the serialized sketch
+     * @return the sketch
+     */
+    public static QuantileSketch fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        QuantileSketch sketch = new QuantileSketch(buffer.getDouble(), buffer.getDouble(), buffer.getDouble());
+        sketch.count = buffer.getLong();
+        sketch.min = buffer.getDouble();
+        sketch.max = buffer.getDouble();
+        buffer.asLongBuffer().get(sketch.counts);
+        return sketch;
+    }
+
+    /**
+     * Selects the bucket of a value, clamped to the covered range.
+     *
+     * @param value the value
+     * @return the index into {@link #counts}
+     */
+    private int index(double value) {
+        if (value <= minValue) {
+            return 0;
+        }
+        return Math.min(rawIndex(value) - offset, counts.length - 1);
+    }
+
+    /**
+     * Computes the logarithmic bucket index of a positive value.
+     *
+     * @param value the value
+     * @return the smallest index whose upper bound is at least the value
+     */
+    private int rawIndex(double value) {
+        return (int) Math.ceil(Math.log(value) / logGamma);
+    }
+}
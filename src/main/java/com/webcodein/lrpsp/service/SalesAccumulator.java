@@ -0,0 +1,212 @@
+package com.webcodein.lrpsp.service;
+
+import com.webcodein.lrpsp.model.Order;
+
+import java.util.Arrays;
+
+/**
+ * Primitive-specialized accumulator of per-customer sales totals.
+ * <p>
+ * Every customer ID is interned to a dense index through an open-addressing hash table, and totals,
+ * discounts and order counts are summed into parallel {@code double[]}/{@code long[]} arrays at that index. Adding an
+ * order therefore allocates nothing (no boxing, no map entry, no tuple); memory is only allocated when
+ * the arrays grow, which happens a logarithmic number of times.
+ * <p>
+ * Instances are not thread-safe and are meant to be filled by a single reduction.
+ */
+public final class SalesAccumulator {
+
+    private static final int DEFAULT_EXPECTED_CUSTOMERS = 1024;
+
+    private String[] ids;       // Customer ID per dense index
+    private double[] totals;    // Summed order totals per dense index
+    private double[] discounts; // Summed order discounts per dense index
+    private long[] counts;      // Number of orders per dense index
+    private int[] table;        // Open-addressing table holding dense index + 1, 0 meaning empty
+    private int size;           // Number of distinct customers
+
+    /**
+     * Creates an accumulator sized for a default number of customers.
+     */
+    public SalesAccumulator() {
+        this(DEFAULT_EXPECTED_CUSTOMERS);
+    }
+
+    /**
+     * Creates an accumulator sized for the given number of customers, so that it does not need to grow.
+     *
+     * @param expectedCustomers the expected number of distinct customers
+     */
+    public SalesAccumulator(int expectedCustomers) {
+        int capacity = Math.max(16, expectedCustomers);
+        ids = new String[capacity];
+        totals = new double[capacity];
+        discounts = new double[capacity];
+        counts = new long[capacity];
+        table = new int[tableSizeFor(capacity)];
+    }
+
+    /**
+     * Adds an order to its customer's totals. Orders without a customer ID are ignored.
+     *
+     * @param order the order to add
+     * @return this accumulator, for use as a reduction function
+     */
+    public SalesAccumulator add(Order order) {
+        if (order.getCustomerId() != null) {
+            add(order.getCustomerId(),
+                    order.getTotal() != null ? order.getTotal() : 0d,
+                    order.getDiscount() != null ? order.getDiscount() : 0d);
+        }
+        return this;
+    }
+
+    /**
+     * Adds an order total to a customer's totals.
+     *
+     * @param customerId the ID of the customer
+     * @param total      the order total
+     */
+    public void add(String customerId, double total) {
+        add(customerId, total, 0d);
+    }
+
+    /**
+     * Adds an order total and discount to a customer's totals.
+     *
+     * @param customerId the ID of the customer
+     * @param total      the order total
+     * @param discount   the order discount
+     */
+    public void add(String customerId, double total, double discount) {
+        int index = intern(customerId);
+        totals[index] += total;
+        discounts[index] += discount;
+        counts[index]++;
+    }
+
+    /**
+     * Returns the summed order totals of a customer.
+     *
+     * @param customerId the ID of the customer
+     * @return the customer's total, or 0 if no order was added for it
+     */
+    public double total(String customerId) {
+        int index = indexOf(customerId);
+        return index < 0 ? 0d : totals[index];
+    }
+
+    /**
+     * Returns the summed order discounts of a customer.
+     *
+     * @param customerId the ID of the customer
+     * @return the customer's discount, or 0 if no order was added for it
+     */
+    public double discount(String customerId) {
+        int index = indexOf(customerId);
+        return index < 0 ? 0d : discounts[index];
+    }
+
+    /**
+     * Returns the number of orders added for a customer.
+     *
+     * @param customerId the ID of the customer
+     * @return the customer's order count, or 0 if no order was added for it
+     */
+    public long orderCount(String customerId) {
+        int index = indexOf(customerId);
+        return index < 0 ? 0L : counts[index];
+    }
+
+    /**
+     * Returns the number of distinct customers with at least one order.
+     *
+     * @return the number of customers
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Looks up the dense index of a customer ID.
+     *
+     * @param customerId the ID of the customer
+     * @return the dense index, or -1 if the ID was never added
+     */
+    private int indexOf(String customerId) {
+        int mask = table.length - 1;
+        for (int slot = hash(customerId) & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+            int index = table[slot] - 1;
+            if (ids[index].equals(customerId)) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the dense index of a customer ID, assigning the next free one if the ID is new.
+     *
+     * @param customerId the ID of the customer
+     * @return the dense index
+     */
+    private int intern(String customerId) {
+        int mask = table.length - 1;
+        int slot = hash(customerId) & mask;
+        for (; table[slot] != 0; slot = (slot + 1) & mask) {
+            int index = table[slot] - 1;
+            if (ids[index].equals(customerId)) {
+                return index;
+            }
+        }
+        if (size == ids.length) {
+            grow();
+            return intern(customerId); // The table was rebuilt, probe again
+        }
+        int index = size++;
+        ids[index] = customerId;
+        table[slot] = index + 1;
+        return index;
+    }
+
+    /**
+     * Doubles the capacity of the arrays and rebuilds the hash table.
+     */
+    private void grow() {
+        int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        totals = Arrays.copyOf(totals, capacity);
+        discounts = Arrays.copyOf(discounts, capacity);
+        counts = Arrays.copyOf(counts, capacity);
+        table = new int[tableSizeFor(capacity)];
+        int mask = table.length - 1;
+        for (int index = 0; index < size; index++) {
+            int slot = hash(ids[index]) & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = index + 1;
+        }
+    }
+
+    /**
+     * Spreads the (cached) string hash code so that similar IDs do not cluster in the table.
+     *
+     * @param customerId the ID of the customer
+     * @return the spread hash
+     */
+    private static int hash(String customerId) {
+        int h = customerId.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Computes a power-of-two table size keeping the load factor at or below one half.
+     *
+     * @param capacity the number of entries the table must hold
+     * @return the table size
+     */
+    private static int tableSizeFor(int capacity) {
+        return Integer.highestOneBit(capacity * 2 - 1) << 1;
+    }
+}
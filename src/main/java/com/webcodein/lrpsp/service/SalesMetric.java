@@ -0,0 +1,77 @@
+package com.webcodein.lrpsp.service;
+
+import com.webcodein.lrpsp.model.CustomerSalesSummary;
+
+import java.util.Comparator;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Selects the sales figure a summary reports or customers are ranked by.
+ * <p>
+ * Every figure is computed by the same aggregation pass, so selecting one costs nothing extra.
+ */
+public enum SalesMetric {
+
+    /**
+     * Sum of the order totals (gross revenue).
+     */
+    TOTAL("total", CustomerSalesSummary::getTotal),
+
+    /**
+     * Sum of the order discounts.
+     */
+    DISCOUNT("discount", CustomerSalesSummary::getDiscount),
+
+    /**
+     * Sum of the order totals net of their discounts.
+     */
+    NET("net", CustomerSalesSummary::getNet),
+
+    /**
+     * Number of orders.
+     */
+    ORDERS("orderCount", CustomerSalesSummary::getOrderCount),
+
+    /**
+     * Average order total.
+     */
+    AVERAGE("average", CustomerSalesSummary::getAverage);
+
+    private final String field;                                 // Field holding the figure in the aggregation output
+    private final ToDoubleFunction<CustomerSalesSummary> figure; // Reads the figure from a summary
+
+    SalesMetric(String field, ToDoubleFunction<CustomerSalesSummary> figure) {
+        this.field = field;
+        this.figure = figure;
+    }
+
+    /**
+     * Gets the field holding the figure in the aggregation output.
+     *
+     * @return the field name
+     */
+    public String field() {
+        return field;
+    }
+
+    /**
+     * Reads the figure from a customer's summary.
+     *
+     * @param summary the customer's sales figures
+     * @return the selected figure
+     */
+    public double figureOf(CustomerSalesSummary summary) {
+        return figure.applyAsDouble(summary);
+    }
+
+    /**
+     * Orders customers from the lowest to the highest figure; ties rank the smaller customer ID higher,
+     * as the aggregation does.
+     *
+     * @return the ascending ranking order
+     */
+    public Comparator<CustomerSalesSummary> ranking() {
+        return Comparator.comparingDouble(figure)
+                .thenComparing(CustomerSalesSummary::getCustomerId, Comparator.reverseOrder());
+    }
+}
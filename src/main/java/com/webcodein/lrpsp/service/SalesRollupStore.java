@@ -0,0 +1,231 @@
+package com.webcodein.lrpsp.service;
+
+import com.webcodein.lrpsp.model.Customer;
+import com.webcodein.lrpsp.model.JobSalesRollup;
+import com.webcodein.lrpsp.model.Order;
+import com.webcodein.lrpsp.model.RollupGranularity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Maintains per-job sales rollups in minute, hour and day buckets.
+ * <p>
+ * Every written order is added to the {@link JobSalesRollup} of its customer's job for the current
+ * minute, hour and day. A batch of orders is first summed per rollup, then applied with one
+ * {@code $inc} upsert per rollup in a single unordered bulk write. Orders carry no timestamp, so they
+ * are bucketed by the time they are written, and only orders written through the application are
+ * rolled up. Minute and hour rollups expire after their retention through a TTL index.
+ */
+@Service
+public class SalesRollupStore implements OrderWriteListener {
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+    private final Map<RollupGranularity, Duration> retentions = new EnumMap<>(RollupGranularity.class); // Zero keeps rollups forever
+    private final long maxBuckets; // Maximum number of buckets a range query may span
+
+    /**
+     * Constructor-based injection of ReactiveMongoTemplate and the rollup settings.
+     *
+     * @param reactiveMongoTemplate the reactive MongoDB template
+     * @param minuteRetention       how long minute rollups are kept
+     * @param hourRetention         how long hour rollups are kept
+     * @param dayRetention          how long day rollups are kept; zero keeps them forever
+     * @param maxBuckets            the maximum number of buckets a range query may span
+     */
+    public SalesRollupStore(ReactiveMongoTemplate reactiveMongoTemplate,
+                            @Value("${rollups.retention.minute:2d}") Duration minuteRetention,
+                            @Value("${rollups.retention.hour:90d}") Duration hourRetention,
+                            @Value("${rollups.retention.day:0s}") Duration dayRetention,
+                            @Value("${rollups.max-buckets:1500}") long maxBuckets) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.retentions.put(RollupGranularity.MINUTE, minuteRetention);
+        this.retentions.put(RollupGranularity.HOUR, hourRetention);
+        this.retentions.put(RollupGranularity.DAY, dayRetention);
+        this.maxBuckets = maxBuckets;
+    }
+
+    /**
+     * Adds written orders to the rollups of their customers' jobs.
+     *
+     * @param orders the written orders
+     * @return Mono completing once the rollups are updated
+     */
+    @Override
+    public Mono<Void> ordersWritten(List<Order> orders) {
+        return recordAll(orders, Instant.now());
+    }
+
+    /**
+     * Adds orders to the rollups of their customers' jobs, in the buckets containing the given time.
+     * <p>
+     * The jobs of all customers in the batch are read with a single query. Orders without a customer
+     * ID or whose customer is unknown are ignored.
+     *
+     * @param orders    the orders to add
+     * @param writtenAt the time the orders were written
+     * @return Mono completing once the rollups are updated
+     */
+    public Mono<Void> recordAll(List<Order> orders, Instant writtenAt) {
+        Set<String> customerIds = new HashSet<>();
+        for (Order order : orders) {
+            if (order.getCustomerId() != null) {
+                customerIds.add(order.getCustomerId());
+            }
+        }
+        if (customerIds.isEmpty()) {
+            return Mono.empty();
+        }
+        Query customers = Query.query(Criteria.where("id").in(customerIds));
+        customers.fields().include("job");
+
+        return reactiveMongoTemplate.find(customers, Customer.class)
+                .filter(customer -> customer.getJob() != null)
+                .collectMap(Customer::getId, Customer::getJob)
+                .flatMap(jobs -> write(deltas(orders, jobs, writtenAt)));
+    }
+
+    /**
+     * Retrieves the rollups of a granularity whose buckets start within a range, ordered by bucket and job.
+     *
+     * @param granularity the width of the buckets
+     * @param from        the start of the range, inclusive; the bucket containing it is included
+     * @param to          the end of the range, exclusive
+     * @param job         the job to restrict to, or null for every job
+     * @return Flux emitting the rollups
+     * @throws ResponseStatusException with {@code 400 Bad Request} if the range is empty or spans too many buckets
+     */
+    public Flux<JobSalesRollup> findRollups(RollupGranularity granularity, Instant from, Instant to, String job) {
+        Criteria criteria = rangeCriteria(granularity, from, to);
+        if (job != null) {
+            criteria.and("job").is(job);
+        }
+        Query query = Query.query(criteria).with(Sort.by("bucket", "job"));
+        return reactiveMongoTemplate.find(query, JobSalesRollup.class);
+    }
+
+    /**
+     * Sums the rollups of a granularity over a range, per job, ordered by job.
+     *
+     * @param granularity the width of the buckets summed
+     * @param from        the start of the range, inclusive; the bucket containing it is included
+     * @param to          the end of the range, exclusive
+     * @return Flux emitting one rollup without bucket per job that has orders in the range
+     * @throws ResponseStatusException with {@code 400 Bad Request} if the range is empty or spans too many buckets
+     */
+    public Flux<JobSalesRollup> summarizeByJob(RollupGranularity granularity, Instant from, Instant to) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(rangeCriteria(granularity, from, to)),
+                Aggregation.group("job")
+                        .sum("total").as("total")
+                        .sum("discount").as("discount")
+                        .sum("orderCount").as("orderCount"),
+                Aggregation.project("total", "discount", "orderCount").and("_id").as("job").andExclude("_id"),
+                Aggregation.sort(Sort.by("job")));
+        return reactiveMongoTemplate.aggregate(aggregation, reactiveMongoTemplate.getCollectionName(JobSalesRollup.class),
+                JobSalesRollup.class);
+    }
+
+    /**
+     * Sums orders per granularity, job and bucket.
+     *
+     * @param orders    the orders to sum
+     * @param jobs      the job of every known customer, by customer ID
+     * @param writtenAt the time the orders were written
+     * @return the rollup increments, by rollup ID
+     */
+    static Map<String, JobSalesRollup> deltas(List<Order> orders, Map<String, String> jobs, Instant writtenAt) {
+        Map<String, JobSalesRollup> deltas = new HashMap<>();
+        for (Order order : orders) {
+            String job = order.getCustomerId() != null ? jobs.get(order.getCustomerId()) : null;
+            if (job == null) {
+                continue;
+            }
+            for (RollupGranularity granularity : RollupGranularity.values()) {
+                Instant bucket = granularity.bucketOf(writtenAt);
+                JobSalesRollup delta = deltas.computeIfAbsent(JobSalesRollup.idOf(granularity, job, bucket), id -> {
+                    JobSalesRollup rollup = new JobSalesRollup();
+                    rollup.setId(id);
+                    rollup.setGranularity(granularity);
+                    rollup.setJob(job);
+                    rollup.setBucket(bucket);
+                    return rollup;
+                });
+                delta.setTotal(delta.getTotal() + (order.getTotal() != null ? order.getTotal() : 0d));
+                delta.setDiscount(delta.getDiscount() + (order.getDiscount() != null ? order.getDiscount() : 0d));
+                delta.setOrderCount(delta.getOrderCount() + 1);
+            }
+        }
+        return deltas;
+    }
+
+    /**
+     * Applies rollup increments with one {@code $inc} upsert per rollup in a single unordered bulk write.
+     *
+     * @param deltas the rollup increments, by rollup ID
+     * @return Mono completing once the rollups are updated
+     */
+    private Mono<Void> write(Map<String, JobSalesRollup> deltas) {
+        if (deltas.isEmpty()) {
+            return Mono.empty();
+        }
+        ReactiveBulkOperations bulk = reactiveMongoTemplate.bulkOps(BulkMode.UNORDERED, JobSalesRollup.class);
+        deltas.forEach((id, delta) -> {
+            Update update = new Update()
+                    .inc("total", delta.getTotal())
+                    .inc("discount", delta.getDiscount())
+                    .inc("orderCount", delta.getOrderCount())
+                    .setOnInsert("granularity", delta.getGranularity().name())
+                    .setOnInsert("job", delta.getJob())
+                    .setOnInsert("bucket", delta.getBucket());
+            Duration retention = retentions.get(delta.getGranularity());
+            if (!retention.isZero()) {
+                // Counted from the end of the bucket, so a bucket is never removed while it is still being written
+                update.setOnInsert("expireAt", delta.getBucket().plus(delta.getGranularity().width()).plus(retention));
+            }
+            bulk.upsert(Query.query(Criteria.where("id").is(id)), update);
+        });
+        return bulk.execute().then();
+    }
+
+    /**
+     * Builds the criteria selecting the rollups of a granularity within a range.
+     *
+     * @param granularity the width of the buckets
+     * @param from        the start of the range, inclusive
+     * @param to          the end of the range, exclusive
+     * @return the range criteria
+     * @throws ResponseStatusException with {@code 400 Bad Request} if the range is empty or spans too many buckets
+     */
+    private Criteria rangeCriteria(RollupGranularity granularity, Instant from, Instant to) {
+        if (!from.isBefore(to)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Expected 'from' to be before 'to'");
+        }
+        if (granularity.bucketsBetween(from, to) > maxBuckets) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Range spans more than " + maxBuckets + " " + granularity + " buckets, use a coarser granularity");
+        }
+        return Criteria.where("granularity").is(granularity.name()) // Also used in untyped aggregations
+                .and("bucket").gte(granularity.bucketOf(from)).lt(to);
+    }
+}
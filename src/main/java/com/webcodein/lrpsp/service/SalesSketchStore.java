@@ -0,0 +1,264 @@
+package com.webcodein.lrpsp.service;
+
+import com.webcodein.lrpsp.model.ApproximateSalesSummary;
+import com.webcodein.lrpsp.model.Order;
+import com.webcodein.lrpsp.model.SalesSketchState;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Maintains approximate sales sketches of the written orders, for dashboards that need no exact figures.
+ * <p>
+ * Every written order is added to in-memory {@link SalesSketches} (distinct customers, order total
+ * quantiles and heavy-hitter customers), whose size does not depend on the number of orders. Every
+ * {@code flushInterval} the sketches are written to this instance's {@link SalesSketchState} document.
+ * Approximate answers merge the live sketches of this instance with the stored sketches of all others,
+ * so their cost only depends on the number of instances.
+ * <p>
+ * The instance ID defaults to the host name, so a restarted instance reloads and keeps updating its own
+ * document. Every flush refreshes the document's update time, even without new orders. Documents not
+ * updated for {@code retireAfter}, e.g. those of hosts that were replaced by a deployment, are claimed
+ * with an atomic find-and-remove, folded into this instance's sketches and written back as part of its
+ * document, so the number of stored documents stays bounded by the number of live instances.
+ * <p>
+ * Only orders written through the application are sketched. Orders sketched after the last flush are
+ * lost if the process crashes.
+ */
+@Service
+public class SalesSketchStore implements OrderWriteListener {
+
+    private static final Logger log = LoggerFactory.getLogger(SalesSketchStore.class);
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+    private final String instanceId;        // ID of this instance's stored sketches
+    private final Duration flushInterval;   // Maximum time sketched orders stay unwritten
+    private final Duration retireAfter;     // Time after which the document of another instance is folded into this one
+    private final int heavyHitterCapacity;  // Maximum number of heavy-hitter candidates tracked
+    private final SalesSketches sketches;   // Live sketches, guarded by their own monitor
+    private final AtomicBoolean dirty = new AtomicBoolean(); // Whether orders were sketched since the last flush
+
+    private volatile boolean loaded; // True once the stored sketches of this instance are merged into the live ones
+    private Disposable timer;        // Periodic flush, if started
+    private Disposable retirement;   // Periodic folding of retired documents, if started
+
+    /**
+     * Constructor-based injection of ReactiveMongoTemplate and the sketch settings.
+     *
+     * @param reactiveMongoTemplate the reactive MongoDB template
+     * @param instanceId            the ID of this instance's stored sketches, stable across restarts
+     * @param flushInterval         the maximum time sketched orders stay unwritten
+     * @param retireAfter           the time after which the document of another instance is folded into this one
+     * @param heavyHitterCapacity   the maximum number of heavy-hitter candidates tracked
+     * @throws IllegalArgumentException if the instance ID is blank or documents retire before being flushed twice
+     */
+    public SalesSketchStore(ReactiveMongoTemplate reactiveMongoTemplate,
+                            @Value("${sketches.instance-id:${HOSTNAME:${spring.application.name}}}") String instanceId,
+                            @Value("${sketches.flush-interval:10s}") Duration flushInterval,
+                            @Value("${sketches.retire-after:10m}") Duration retireAfter,
+                            @Value("${sketches.heavy-hitters:100}") int heavyHitterCapacity) {
+        if (instanceId.isBlank() || retireAfter.compareTo(flushInterval.multipliedBy(2)) < 0) {
+            throw new IllegalArgumentException("Expected a non-blank instance-id and retire-after >= 2 * flush-interval");
+        }
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.instanceId = instanceId;
+        this.flushInterval = flushInterval;
+        this.retireAfter = retireAfter;
+        this.heavyHitterCapacity = Math.max(heavyHitterCapacity, 1);
+        this.sketches = new SalesSketches(this.heavyHitterCapacity);
+    }
+
+    /**
+     * Loads the stored sketches of this instance, then starts the periodic flush and folding of retired documents.
+     * <p>
+     * Runs in the background and never blocks startup. If loading fails, nothing is flushed, so that
+     * the stored sketches are not overwritten by partial ones.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        reactiveMongoTemplate.findById(instanceId, SalesSketchState.class)
+                .doOnNext(state -> {
+                    SalesSketches stored = SalesSketches.fromState(state, heavyHitterCapacity);
+                    synchronized (sketches) {
+                        sketches.merge(stored);
+                    }
+                })
+                .subscribe(
+                        state -> log.info("Loaded stored sales sketches of instance {}", instanceId),
+                        error -> log.warn("Could not load stored sales sketches, they will not be updated", error),
+                        () -> {
+                            loaded = true;
+                            timer = Flux.interval(flushInterval, flushInterval)
+                                    .concatMap(tick -> flush().onErrorResume(error -> {
+                                        log.warn("Could not write sales sketches", error);
+                                        return Mono.empty();
+                                    }))
+                                    .subscribe();
+                            retirement = Flux.interval(Duration.ZERO, retireAfter)
+                                    .concatMap(tick -> retireStaleInstances().onErrorResume(error -> {
+                                        log.warn("Could not fold retired sales sketches", error);
+                                        return Mono.empty();
+                                    }))
+                                    .subscribe();
+                        });
+    }
+
+    /**
+     * Stops the periodic flush and writes the sketches one last time.
+     */
+    @PreDestroy
+    public void stop() {
+        if (timer != null) {
+            timer.dispose();
+        }
+        if (retirement != null) {
+            retirement.dispose();
+        }
+        flush().block(Duration.ofSeconds(10));
+    }
+
+    /**
+     * Adds written orders to the sketches.
+     *
+     * @param orders the written orders
+     * @return Mono completing once the orders are sketched
+     */
+    @Override
+    public Mono<Void> ordersWritten(List<Order> orders) {
+        return Mono.fromRunnable(() -> {
+            synchronized (sketches) {
+                orders.forEach(sketches::add);
+            }
+            dirty.set(true);
+        });
+    }
+
+    /**
+     * Answers approximate sales figures from the sketches of every instance.
+     *
+     * @param quantiles the order total quantiles to estimate, between 0 and 1
+     * @param top       the number of heavy-hitter customers to list
+     * @return Mono emitting the approximate figures
+     * @throws ResponseStatusException with {@code 400 Bad Request} if a quantile or the number of heavy hitters is out of bounds
+     */
+    public Mono<ApproximateSalesSummary> summarize(List<Double> quantiles, int top) {
+        if (quantiles.stream().anyMatch(quantile -> !(quantile >= 0 && quantile <= 1))) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Expected quantiles between 0 and 1");
+        }
+        if (top < 0 || top > heavyHitterCapacity) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Expected 'top' between 0 and " + heavyHitterCapacity);
+        }
+        Query others = Query.query(Criteria.where("instanceId").ne(instanceId));
+        return reactiveMongoTemplate.find(others, SalesSketchState.class)
+                .collectList()
+                .map(states -> {
+                    SalesSketches merged = snapshot();
+                    merged.merge(merge(states, heavyHitterCapacity));
+                    ApproximateSalesSummary summary = merged.summarize(quantiles, top);
+                    summary.setInstances(states.size() + 1);
+                    return summary;
+                });
+    }
+
+    /**
+     * Folds the documents of instances that stopped updating them into this instance's document.
+     * <p>
+     * Each stale document is claimed with a find-and-remove that also matches its update time, so a
+     * document is folded by one instance only, and not at all if its instance wrote it again meanwhile.
+     *
+     * @return Mono completing once the claimed documents are merged and written back
+     */
+    private Mono<Void> retireStaleInstances() {
+        Query stale = Query.query(Criteria.where("instanceId").ne(instanceId)
+                .and("updatedAt").lt(Instant.now().minus(retireAfter)));
+        stale.fields().include("updatedAt");
+        return reactiveMongoTemplate.find(stale, SalesSketchState.class)
+                .concatMap(candidate -> reactiveMongoTemplate.findAndRemove(
+                        Query.query(Criteria.where("instanceId").is(candidate.getInstanceId())
+                                .and("updatedAt").is(candidate.getUpdatedAt())),
+                        SalesSketchState.class))
+                .collectList()
+                .flatMap(retired -> {
+                    if (retired.isEmpty()) {
+                        return Mono.empty();
+                    }
+                    SalesSketches folded = merge(retired, heavyHitterCapacity);
+                    synchronized (sketches) {
+                        sketches.merge(folded);
+                    }
+                    dirty.set(true);
+                    log.info("Folded the sales sketches of {} retired instances into instance {}", retired.size(), instanceId);
+                    return flush();
+                });
+    }
+
+    /**
+     * Writes the live sketches to this instance's document if orders were sketched since the last flush,
+     * and otherwise only refreshes its update time so that other instances do not retire it.
+     *
+     * @return Mono completing once the sketches are written
+     */
+    private Mono<Void> flush() {
+        if (!loaded) {
+            return Mono.empty();
+        }
+        if (!dirty.getAndSet(false)) {
+            return reactiveMongoTemplate.updateFirst(
+                            Query.query(Criteria.where("instanceId").is(instanceId)),
+                            Update.update("updatedAt", Instant.now()),
+                            SalesSketchState.class)
+                    .then();
+        }
+        SalesSketchState state;
+        synchronized (sketches) {
+            state = sketches.toState(instanceId, Instant.now());
+        }
+        return reactiveMongoTemplate.save(state)
+                .doOnError(error -> dirty.set(true)) // Retried on the next flush
+                .then();
+    }
+
+    /**
+     * Merges stored sketches into new sketches.
+     *
+     * @param states   the stored sketches
+     * @param capacity the maximum number of heavy-hitter candidates tracked
+     * @return the merged sketches, empty if there are no states
+     */
+    static SalesSketches merge(List<SalesSketchState> states, int capacity) {
+        SalesSketches merged = new SalesSketches(capacity);
+        states.forEach(state -> merged.merge(SalesSketches.fromState(state, capacity)));
+        return merged;
+    }
+
+    /**
+     * Copies the live sketches, so that they can be merged with others without holding their monitor.
+     *
+     * @return an independent copy of the live sketches
+     */
+    private SalesSketches snapshot() {
+        SalesSketchState state;
+        synchronized (sketches) {
+            state = sketches.toState(instanceId, Instant.now());
+        }
+        return SalesSketches.fromState(state, heavyHitterCapacity);
+    }
+}
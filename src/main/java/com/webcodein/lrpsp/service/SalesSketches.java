@@ -0,0 +1,213 @@
+package com.webcodein.lrpsp.service;
+
+import com.webcodein.lrpsp.model.ApproximateSalesSummary;
+import com.webcodein.lrpsp.model.Order;
+import com.webcodein.lrpsp.model.SalesSketchState;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The sales sketches of a stream of orders: distinct customers, order total quantiles and heavy-hitter customers.
+ * <p>
+ * Customers are counted in a {@link HyperLogLog}, order totals in a {@link QuantileSketch} and orders
+ * per customer in a {@link CountMinSketch}. Since a Count-Min sketch cannot list its items, the
+ * customers with the highest estimates are tracked as heavy-hitter candidates, at most
+ * {@code capacity} of them. Sketch dimensions are fixed so that the sketches of every instance can be
+ * merged. Memory is about 200 KB whatever the number of orders. Not thread-safe.
+ */
+final class SalesSketches {
+
+    private static final int HLL_PRECISION = 14;             // 16 KB of registers, ~0.8% standard error
+    private static final int COUNT_MIN_DEPTH = 5;            // Overestimates beyond the bound with probability e^-5 (<1%)
+    private static final int COUNT_MIN_WIDTH = 4096;         // Overestimates by at most e/4096 (~0.07%) of all orders
+    private static final double QUANTILE_ACCURACY = 0.01;    // Quantiles within 1% of the actual order total
+    private static final double QUANTILE_MIN_VALUE = 0.01;   // Order totals are told apart from one cent
+    private static final double QUANTILE_MAX_VALUE = 1e9;    // up to a billion
+
+    private final int capacity; // Maximum number of heavy-hitter candidates
+    private final HyperLogLog distinctCustomers;
+    private final QuantileSketch orderTotals;
+    private final CountMinSketch customerOrders;
+    private final Map<String, Long> heavyHitters = new HashMap<>(); // Estimated order count per candidate customer ID
+    private long floor; // Lower bound of the smallest candidate estimate once the candidates are full
+
+    /**
+     * Creates empty sketches.
+     *
+     * @param capacity the maximum number of heavy-hitter candidates
+     */
+    SalesSketches(int capacity) {
+        this(capacity,
+                new HyperLogLog(HLL_PRECISION),
+                new QuantileSketch(QUANTILE_ACCURACY, QUANTILE_MIN_VALUE, QUANTILE_MAX_VALUE),
+                new CountMinSketch(COUNT_MIN_DEPTH, COUNT_MIN_WIDTH));
+    }
+
+    private SalesSketches(int capacity, HyperLogLog distinctCustomers, QuantileSketch orderTotals, CountMinSketch customerOrders) {
+        this.capacity = capacity;
+        this.distinctCustomers = distinctCustomers;
+        this.orderTotals = orderTotals;
+        this.customerOrders = customerOrders;
+    }
+
+    /**
+     * Adds an order to the sketches.
+     * <p>
+     * Orders without a customer ID only count towards the quantiles, orders without a total only
+     * towards the customer sketches.
+     *
+     * @param order the written order
+     */
+    void add(Order order) {
+        if (order.getTotal() != null) {
+            orderTotals.add(order.getTotal());
+        }
+        if (order.getCustomerId() != null) {
+            long hash = hash(order.getCustomerId());
+            distinctCustomers.add(hash);
+            offer(order.getCustomerId(), customerOrders.add(hash, 1));
+        }
+    }
+
+    /**
+     * Adds the orders of other sketches to these ones.
+     * <p>
+     * The candidates of both sides are estimated again against the merged Count-Min sketch, and the
+     * {@code capacity} highest are kept.
+     *
+     * @param other the sketches to add
+     */
+    void merge(SalesSketches other) {
+        distinctCustomers.merge(other.distinctCustomers);
+        orderTotals.merge(other.orderTotals);
+        customerOrders.merge(other.customerOrders);
+
+        TopK<Map.Entry<String, Long>> top = new TopK<>(capacity, Map.Entry.comparingByValue());
+        heavyHitters.putAll(other.heavyHitters);
+        heavyHitters.keySet().forEach(customerId -> top.offer(Map.entry(customerId, customerOrders.estimate(hash(customerId)))));
+        heavyHitters.clear();
+        top.toList().forEach(entry -> heavyHitters.put(entry.getKey(), entry.getValue()));
+        floor = heavyHitters.size() < capacity ? 0 : smallestHeavyHitter().getValue();
+    }
+
+    /**
+     * Answers the approximate figures from the sketches.
+     *
+     * @param quantiles the order total quantiles to estimate, between 0 and 1
+     * @param top       the number of heavy hitters to list
+     * @return the approximate figures, without the instance count
+     */
+    ApproximateSalesSummary summarize(List<Double> quantiles, int top) {
+        ApproximateSalesSummary summary = new ApproximateSalesSummary();
+        summary.setOrderCount(orderTotals.count());
+        summary.setDistinctCustomers(distinctCustomers.estimate());
+
+        Map<String, Double> orderTotalQuantiles = new LinkedHashMap<>();
+        quantiles.forEach(quantile -> orderTotalQuantiles.put(String.valueOf(quantile), orderTotals.quantile(quantile)));
+        summary.setOrderTotalQuantiles(orderTotalQuantiles);
+
+        Map<String, Long> topHeavyHitters = new LinkedHashMap<>();
+        heavyHitters.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(top)
+                .forEachOrdered(entry -> topHeavyHitters.put(entry.getKey(), entry.getValue()));
+        summary.setHeavyHitters(topHeavyHitters);
+        return summary;
+    }
+
+    /**
+     * Serializes the sketches into the stored state of an instance.
+     *
+     * @param instanceId the instance the sketches belong to
+     * @param updatedAt  the time of serialization
+     * @return the state to store
+     */
+    SalesSketchState toState(String instanceId, Instant updatedAt) {
+        SalesSketchState state = new SalesSketchState();
+        state.setInstanceId(instanceId);
+        state.setUpdatedAt(updatedAt);
+        state.setDistinctCustomers(distinctCustomers.toBytes());
+        state.setOrderTotals(orderTotals.toBytes());
+        state.setCustomerOrders(customerOrders.toBytes());
+        state.setHeavyHitters(List.copyOf(heavyHitters.keySet()));
+        return state;
+    }
+
+    /**
+     * Deserializes the stored state of an instance.
+     *
+     * @param state    the stored state
+     * @param capacity the maximum number of heavy-hitter candidates
+     * @return the sketches, with the candidates estimated again from the Count-Min sketch
+     */
+    static SalesSketches fromState(SalesSketchState state, int capacity) {
+        SalesSketches sketches = new SalesSketches(capacity,
+                HyperLogLog.fromBytes(state.getDistinctCustomers()),
+                QuantileSketch.fromBytes(state.getOrderTotals()),
+                CountMinSketch.fromBytes(state.getCustomerOrders()));
+        if (state.getHeavyHitters() != null) {
+            state.getHeavyHitters().forEach(customerId ->
+                    sketches.offer(customerId, sketches.customerOrders.estimate(hash(customerId))));
+        }
+        return sketches;
+    }
+
+    /**
+     * Hashes a customer ID into 64 well-mixed bits: FNV-1a over its characters, then the MurmurHash3 finalizer.
+     *
+     * @param value the customer ID
+     * @return the hash
+     */
+    static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * Tracks a customer as a heavy-hitter candidate if its estimate is among the {@code capacity} highest.
+     * <p>
+     * Estimates only grow, so the smallest candidate is only searched for when the new estimate beats
+     * the last known smallest one.
+     *
+     * @param customerId the customer ID
+     * @param estimate   the customer's estimated order count
+     */
+    private void offer(String customerId, long estimate) {
+        if (heavyHitters.size() < capacity || heavyHitters.containsKey(customerId)) {
+            heavyHitters.put(customerId, estimate);
+            return;
+        }
+        if (estimate <= floor) {
+            return;
+        }
+        Map.Entry<String, Long> smallest = smallestHeavyHitter();
+        if (estimate > smallest.getValue()) {
+            heavyHitters.remove(smallest.getKey());
+            heavyHitters.put(customerId, estimate);
+            smallest = smallestHeavyHitter();
+        }
+        floor = smallest.getValue();
+    }
+
+    /**
+     * Finds the candidate with the smallest estimate.
+     *
+     * @return the candidate's customer ID and estimate
+     */
+    private Map.Entry<String, Long> smallestHeavyHitter() {
+        return heavyHitters.entrySet().stream().min(Map.Entry.comparingByValue()).orElseThrow();
+    }
+}
@@ -0,0 +1,506 @@
+package com.webcodein.lrpsp.service;
+
+import com.webcodein.lrpsp.model.Customer;
+import com.webcodein.lrpsp.model.CustomerSalesSummary;
+import com.webcodein.lrpsp.model.CustomerSalesTotal;
+import com.webcodein.lrpsp.model.Order;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.aggregation.ArithmeticOperators;
+import org.springframework.data.mongodb.core.aggregation.ArrayOperators;
+import org.springframework.data.mongodb.core.aggregation.ComparisonOperators;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.aggregation.UnionWithOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.observability.micrometer.Micrometer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.ParallelFlux;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Service computing per-customer sales figures.
+ * <p>
+ * The summary is normally produced on the MongoDB server by a single aggregation pipeline, so the
+ * application reads one cursor instead of issuing one query per customer. With
+ * {@link SummarySource#REPLAY} the orders are summed in-process instead, into primitive arrays.
+ * With {@link SummarySource#PARALLEL} the customer ID space is split into ranges that are aggregated
+ * concurrently, each by its own pipeline. Ranges are bounded in the stored form of the configured
+ * {@link KeyStrategy}, so every customer key is expected to be stored in that form.
+ * <p>
+ * Every source computes all figures of a {@link CustomerSalesSummary} (gross, discount, net, order
+ * count and average) in the same pass over the orders; the {@link SalesMetric} of a request only
+ * selects which figure is reported.
+ * <p>
+ * The top customers by a {@link SalesMetric} are ranked by the same pipelines followed by a
+ * {@code $sort} and {@code $limit}, which the server coalesces into a top-k sort holding only
+ * {@code k} documents. Customer names are only looked up for those {@code k} customers.
+ */
+@Service
+public class SalesSummaryService {
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+    private final KeyStrategy keyStrategy;
+    private final int streamWindow;         // Maximum number of summaries requested from the cursor at once when streaming
+    private final int partitionCount;       // Number of customer ID ranges aggregated concurrently in PARALLEL mode
+    private final int maxTopCustomers;      // Largest number of top customers a single request may ask for
+    private final MeterRegistry meterRegistry;
+    private final Scheduler partitionScheduler; // Shared parallel scheduler, timed so partition work shows up as meters
+
+    /**
+     * Constructor-based injection of ReactiveMongoTemplate, the key strategy, the streaming window size, the partition count,
+     * the top customers limit and the meter registry.
+     *
+     * @param reactiveMongoTemplate the reactive MongoDB template
+     * @param keyStrategy           the strategy customer keys are stored with, which determines the ID ranges
+     * @param streamWindow          the number of summaries fetched per cursor batch when streaming
+     * @param partitions            the number of customer ID ranges aggregated concurrently in PARALLEL mode
+     * @param maxTopCustomers       the largest number of top customers a single request may ask for
+     * @param meterRegistry         the registry the summary flows and the partition scheduler publish meters to
+     */
+    public SalesSummaryService(ReactiveMongoTemplate reactiveMongoTemplate,
+                               KeyStrategy keyStrategy,
+                               @Value("${sales.summary.stream-window:256}") int streamWindow,
+                               @Value("${sales.summary.partitions:8}") int partitions,
+                               @Value("${sales.top.max-k:1000}") int maxTopCustomers,
+                               MeterRegistry meterRegistry) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.keyStrategy = keyStrategy;
+        this.streamWindow = streamWindow;
+        this.partitionCount = Math.max(partitions, 1);
+        this.maxTopCustomers = maxTopCustomers;
+        this.meterRegistry = meterRegistry;
+        this.partitionScheduler = Micrometer.timedScheduler(Schedulers.parallel(), meterRegistry, "sales.summary.partitions");
+    }
+
+    /**
+     * Calculates the sales summary as a map of customer names to one of their sales figures.
+     * <p>
+     * Customers without orders are reported with figures of 0. In {@code PARALLEL} mode every partition
+     * fills its own map and the partial maps are merged pairwise once their partitions complete, so no
+     * map is ever written by two threads.
+     *
+     * @param source where the per-customer totals are read from
+     * @param metric the figure reported per customer
+     * @return Mono emitting a map with customer names as keys and the selected figure as values
+     */
+    public Mono<Map<String, Double>> summarizeByName(SummarySource source, SalesMetric metric) {
+        Mono<Map<String, Double>> summary = source == SummarySource.PARALLEL
+                ? aggregatePartitions(defaultOptions())
+                        .<Map<String, Double>>collect(HashMap::new,
+                                (map, customer) -> map.put(customer.getName(), metric.figureOf(customer)))
+                        .reduce((left, right) -> {
+                            left.putAll(right);
+                            return left;
+                        })
+                : summarizeCustomers(source)
+                        .collectMap(
+                                CustomerSalesSummary::getName,  // Key: customer name
+                                metric::figureOf                // Value: selected sales figure
+                        );
+        return summary
+                // Publishes subscription count and flow duration as sales.summary.* meters
+                .name("sales.summary")
+                .tag("source", source.name())
+                .tag("metric", metric.name())
+                .tap(Micrometer.metrics(meterRegistry));
+    }
+
+    /**
+     * Streams the sales figures of every customer straight from the aggregation cursor.
+     *
+     * @param source where the per-customer totals are read from
+     * @return Flux emitting one {@link CustomerSalesSummary} per customer
+     */
+    public Flux<CustomerSalesSummary> summarizeCustomers(SummarySource source) {
+        return switch (source) {
+            case REPLAY -> replaySummaries();
+            case PARALLEL -> aggregatePartitions(defaultOptions()).sequential();
+            default -> aggregateSummaries(source, IdRange.ALL, defaultOptions());
+        };
+    }
+
+    /**
+     * Streams the sales figures of every customer while holding at most one window of them in memory.
+     * <p>
+     * The cursor fetches {@code streamWindow} documents per batch and {@code limitRate} caps the
+     * demand forwarded upstream, so a slow client throttles the cursor instead of letting results pile up.
+     *
+     * @param source where the per-customer totals are read from
+     * @return Flux emitting one {@link CustomerSalesSummary} per customer, paced by downstream demand
+     */
+    public Flux<CustomerSalesSummary> streamCustomers(SummarySource source) {
+        AggregationOptions options = AggregationOptions.builder()
+                .allowDiskUse(true)
+                .cursorBatchSize(streamWindow)
+                .build();
+
+        Flux<CustomerSalesSummary> summaries = switch (source) {
+            case REPLAY -> replaySummaries();
+            case PARALLEL -> aggregatePartitions(options).sequential(streamWindow);
+            default -> aggregateSummaries(source, IdRange.ALL, options);
+        };
+        return summaries
+                .limitRate(streamWindow)
+                // Publishes subscription count, flow duration and per-element timing as sales.summary.stream.* meters
+                .name("sales.summary.stream")
+                .tag("source", source.name())
+                .tap(Micrometer.metrics(meterRegistry));
+    }
+
+    /**
+     * Ranks the customers with the highest sales figures.
+     * <p>
+     * With {@code AGGREGATE} the orders are grouped, sorted and limited in one pipeline. With
+     * {@code PARALLEL} every customer ID range yields its own top {@code k}, and the partial rankings
+     * are merged into a bounded {@link TopK} heap as they arrive, so at most {@code k} customers are held
+     * whatever the number of ranges. With {@code MATERIALIZED} the per-customer totals are sorted
+     * directly. Ties rank the smaller customer ID first. Customers unknown to the customer collection
+     * are ranked without a name.
+     *
+     * @param k      the number of customers to return
+     * @param metric the figure customers are ranked by
+     * @param source where the per-customer figures are read from
+     * @return Mono emitting at most {@code k} customers, highest figure first
+     * @throws ResponseStatusException with {@code 400 Bad Request} if {@code k} is out of bounds or the source is {@code REPLAY}
+     */
+    public Mono<List<CustomerSalesSummary>> topCustomers(int k, SalesMetric metric, SummarySource source) {
+        if (k < 1 || k > maxTopCustomers) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Expected 'k' between 1 and " + maxTopCustomers);
+        }
+        if (source == SummarySource.REPLAY) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Top customers are ranked on the server, use AGGREGATE, MATERIALIZED or PARALLEL");
+        }
+        Mono<List<CustomerSalesSummary>> top = source == SummarySource.PARALLEL
+                ? partitions()
+                        .flatMapMany(Flux::fromIterable)
+                        .flatMap(range -> aggregateTop(source, range, k, metric), partitionCount)
+                        .collect(() -> new TopK<>(k, metric.ranking()), TopK::offer)
+                        .map(TopK::toList)
+                : aggregateTop(source, IdRange.ALL, k, metric).collectList();
+        return top
+                // Publishes subscription count and flow duration as sales.top.* meters
+                .name("sales.top")
+                .tag("source", source.name())
+                .tag("metric", metric.name())
+                .tap(Micrometer.metrics(meterRegistry));
+    }
+
+    /**
+     * Sums every order in-process and joins the totals with the customers.
+     * <p>
+     * Orders are read with the {@code customerId_total_discount} covering projection and folded into a single
+     * {@link SalesAccumulator}, which allocates nothing per order. Summaries are only created at emission
+     * time, one per customer, while the customer cursor is read. Customers without orders are reported
+     * with a total of 0 and orders of unknown customers are dropped, as with the server-side aggregation.
+     *
+     * @return Flux emitting one {@link CustomerSalesSummary} per customer
+     */
+    private Flux<CustomerSalesSummary> replaySummaries() {
+        Query orders = new Query();
+        orders.fields().include("customerId", "total", "discount").exclude("_id");
+        Query customers = new Query();
+        customers.fields().include("name");
+
+        return reactiveMongoTemplate.find(orders, Order.class)
+                .reduceWith(SalesAccumulator::new, SalesAccumulator::add)
+                .flatMapMany(accumulator -> reactiveMongoTemplate.find(customers, Customer.class)
+                        .map(customer -> new CustomerSalesSummary(
+                                customer.getId(),
+                                customer.getName(),
+                                accumulator.total(customer.getId()),
+                                accumulator.discount(customer.getId()),
+                                accumulator.orderCount(customer.getId()))));
+    }
+
+    /**
+     * Runs one aggregation pipeline per customer ID range, concurrently on the parallel scheduler.
+     * <p>
+     * Each rail subscribes to the pipelines of its ranges, so up to {@code partitionCount} cursors are
+     * open at the same time and, on a sharded cluster, are served by different shards.
+     *
+     * @param options the aggregation options (disk use, cursor batch size)
+     * @return ParallelFlux emitting one {@link CustomerSalesSummary} per customer, one rail per range
+     */
+    private ParallelFlux<CustomerSalesSummary> aggregatePartitions(AggregationOptions options) {
+        return partitions()
+                .flatMapMany(Flux::fromIterable)
+                .parallel(partitionCount)
+                .runOn(partitionScheduler)
+                .flatMap(range -> aggregateSummaries(SummarySource.PARALLEL, range, options));
+    }
+
+    /**
+     * Splits the customer IDs into {@code partitionCount} contiguous ranges.
+     * <p>
+     * Random string keys are spread uniformly, so fixed ranges over their leading hex digits hold
+     * similar numbers of customers. Time-ordered keys are clustered by creation time instead, so their
+     * ranges are interpolated between the smallest and the largest customer key, read from the ID index.
+     *
+     * @return Mono emitting the ranges, in ID order
+     */
+    private Mono<List<IdRange>> partitions() {
+        if (partitionCount == 1) {
+            return Mono.just(List.of(IdRange.ALL));
+        }
+        if (!keyStrategy.isTimeOrdered()) {
+            return Mono.just(IdRange.between(IdRange.hexPrefixes(partitionCount)));
+        }
+        return Mono.zip(boundaryCustomer(Sort.Direction.ASC), boundaryCustomer(Sort.Direction.DESC))
+                .map(bounds -> IdRange.between(keyStrategy.boundaries(bounds.getT1().getId(), bounds.getT2().getId(), partitionCount)))
+                .defaultIfEmpty(List.of(IdRange.ALL));
+    }
+
+    /**
+     * Reads the ID of the first customer in the given ID order.
+     *
+     * @param direction ascending for the smallest ID, descending for the largest
+     * @return Mono emitting the customer with only its ID, or empty if there are no customers
+     */
+    private Mono<Customer> boundaryCustomer(Sort.Direction direction) {
+        Query query = new Query().with(Sort.by(direction, "id")).limit(1);
+        query.fields().include("id");
+        return reactiveMongoTemplate.findOne(query, Customer.class);
+    }
+
+    /**
+     * Runs the per-customer sales aggregation for a range of customer IDs with the given options.
+     * <p>
+     * The pipeline starts from the customer collection (every customer contributes zero figures),
+     * appends the per-customer sums via {@code $unionWith}, and folds both into one document
+     * per customer, from which the net revenue and the average are derived. Sums referencing unknown
+     * customers are dropped.
+     *
+     * @param source  where the per-customer totals are read from
+     * @param range   the customer IDs to summarize
+     * @param options the aggregation options (disk use, cursor batch size)
+     * @return Flux emitting one {@link CustomerSalesSummary} per customer
+     */
+    private Flux<CustomerSalesSummary> aggregateSummaries(SummarySource source, IdRange range, AggregationOptions options) {
+        List<AggregationOperation> stages = new ArrayList<>();
+        if (range.isBounded()) {
+            stages.add(Aggregation.match(range.criteria("_id")));
+        }
+        // Every customer enters the pipeline with zero figures so that customers without orders are kept
+        stages.add(Aggregation.addFields()
+                .addFieldWithValue("total", 0d)
+                .addFieldWithValue("discount", 0d)
+                .addFieldWithValue("orderCount", 0)
+                .build());
+        // Append one set of sums per customer
+        stages.add(customerTotals(source, range));
+        // Fold the customer document and its sums into a single document
+        stages.add(Aggregation.group("_id")
+                .max("name").as("name")
+                .sum("total").as("total")
+                .sum("discount").as("discount")
+                .sum("orderCount").as("orderCount"));
+        // Sums without a matching customer carry no name
+        stages.add(Aggregation.match(Criteria.where("name").ne(null)));
+        stages.add(derivedFigures());
+        stages.add(Aggregation.project("name", "total", "discount", "net", "orderCount", "average")
+                .and("_id").as("customerId")
+                .andExclude("_id"));
+        Aggregation aggregation = Aggregation.newAggregation(stages).withOptions(options);
+
+        return reactiveMongoTemplate.aggregate(
+                aggregation,
+                reactiveMongoTemplate.getCollectionName(Customer.class),
+                CustomerSalesSummary.class);
+    }
+
+    /**
+     * Builds the {@code $unionWith} stage contributing one {@code {_id: customerId, total, discount, orderCount}} document per customer.
+     *
+     * @param source where the per-customer totals are read from
+     * @param range  the customer IDs whose totals are contributed
+     * @return the union stage
+     */
+    private UnionWithOperation customerTotals(SummarySource source, IdRange range) {
+        List<AggregationOperation> pipeline = new ArrayList<>();
+        return switch (source) {
+            // Group the orders per customer on the server
+            case AGGREGATE, PARALLEL -> {
+                if (range.isBounded()) {
+                    pipeline.add(Aggregation.match(range.criteria("customerId")));
+                }
+                pipeline.add(orderSums());
+                yield UnionWithOperation.unionWith(reactiveMongoTemplate.getCollectionName(Order.class))
+                        .pipeline(pipeline);
+            }
+            // Materialized totals are already keyed by customer ID
+            case MATERIALIZED -> {
+                UnionWithOperation union = UnionWithOperation.unionWith(reactiveMongoTemplate.getCollectionName(CustomerSalesTotal.class));
+                yield range.isBounded() ? union.pipeline(Aggregation.match(range.criteria("_id"))) : union;
+            }
+            // Replayed summaries never reach the pipeline
+            case REPLAY -> throw new IllegalArgumentException("REPLAY summaries are computed in-process");
+        };
+    }
+
+    /**
+     * Runs the top customers aggregation for a range of customer IDs.
+     * <p>
+     * The per-customer figures are sorted by the metric and limited to {@code k} before the customer
+     * names are joined with {@code $lookup}, so the join runs {@code k} times at most.
+     *
+     * @param source where the per-customer figures are read from ({@code AGGREGATE}, {@code PARALLEL} or {@code MATERIALIZED})
+     * @param range  the customer IDs to rank
+     * @param k      the number of customers to return
+     * @param metric the figure customers are ranked by
+     * @return Flux emitting at most {@code k} customers, highest figure first
+     */
+    private Flux<CustomerSalesSummary> aggregateTop(SummarySource source, IdRange range, int k, SalesMetric metric) {
+        List<AggregationOperation> stages = new ArrayList<>();
+        String collection;
+        if (source == SummarySource.MATERIALIZED) {
+            // Materialized totals are already keyed by customer ID
+            collection = reactiveMongoTemplate.getCollectionName(CustomerSalesTotal.class);
+            if (range.isBounded()) {
+                stages.add(Aggregation.match(range.criteria("_id")));
+            }
+        } else {
+            collection = reactiveMongoTemplate.getCollectionName(Order.class);
+            stages.add(Aggregation.match(range.isBounded()
+                    ? range.criteria("customerId")
+                    : Criteria.where("customerId").ne(null)));
+            stages.add(orderSums());
+        }
+        stages.add(derivedFigures());
+        // Adjacent $sort and $limit are coalesced into a top-k sort holding only k documents
+        stages.add(Aggregation.sort(Sort.by(Sort.Order.desc(metric.field()), Sort.Order.asc("_id"))));
+        stages.add(Aggregation.limit(k));
+        stages.add(Aggregation.lookup(reactiveMongoTemplate.getCollectionName(Customer.class), "_id", "_id", "customer"));
+        stages.add(Aggregation.project("total", "discount", "net", "orderCount", "average")
+                .and("_id").as("customerId")
+                .and(ArrayOperators.ArrayElemAt.arrayOf("customer.name").elementAt(0)).as("name")
+                .andExclude("_id"));
+        Aggregation aggregation = Aggregation.newAggregation(stages).withOptions(defaultOptions());
+
+        return reactiveMongoTemplate.aggregate(aggregation, collection, CustomerSalesSummary.class);
+    }
+
+    /**
+     * Builds the stage summing the orders per customer: gross total, discount and order count in one pass.
+     * <p>
+     * Only {@code customerId}, {@code total} and {@code discount} are read, which the
+     * {@code customerId_total_discount} index covers.
+     *
+     * @return the group stage emitting {@code {_id: customerId, total, discount, orderCount}}
+     */
+    private static AggregationOperation orderSums() {
+        return Aggregation.group("customerId")
+                .sum("total").as("total")
+                .sum("discount").as("discount")
+                .count().as("orderCount");
+    }
+
+    /**
+     * Builds the stage deriving the net revenue and the average order total from the per-customer sums.
+     *
+     * @return the stage adding {@code net} and {@code average}, which is 0 for customers without orders
+     */
+    private static AggregationOperation derivedFigures() {
+        return Aggregation.addFields()
+                .addField("net").withValue(ArithmeticOperators.Subtract.valueOf("total").subtract("discount"))
+                .addField("average").withValue(ConditionalOperators
+                        .when(ComparisonOperators.Eq.valueOf("orderCount").equalToValue(0))
+                        .then(0d)
+                        .otherwiseValueOf(ArithmeticOperators.Divide.valueOf("total").divideBy("orderCount")))
+                .build();
+    }
+
+    /**
+     * Returns the aggregation options of non-streaming summaries.
+     *
+     * @return options allowing the pipeline to spill to disk
+     */
+    private static AggregationOptions defaultOptions() {
+        return AggregationOptions.builder().allowDiskUse(true).build();
+    }
+
+    /**
+     * A half-open range {@code [lower, upper)} of stored customer IDs; a null bound leaves that side open.
+     *
+     * @param lower the smallest ID in the range, or null
+     * @param upper the smallest ID after the range, or null
+     */
+    record IdRange(Object lower, Object upper) {
+
+        static final IdRange ALL = new IdRange(null, null);
+
+        /**
+         * Builds the contiguous ranges separated by the given boundaries.
+         * <p>
+         * The first and last ranges are open-ended, so IDs outside the boundaries still fall into
+         * exactly one range.
+         *
+         * @param boundaries the inner boundaries, in ID order
+         * @return {@code boundaries.size() + 1} ranges, in ID order
+         */
+        static List<IdRange> between(List<?> boundaries) {
+            List<IdRange> ranges = new ArrayList<>(boundaries.size() + 1);
+            for (int i = 0; i <= boundaries.size(); i++) {
+                ranges.add(new IdRange(
+                        i == 0 ? null : boundaries.get(i - 1),
+                        i == boundaries.size() ? null : boundaries.get(i)));
+            }
+            return ranges;
+        }
+
+        /**
+         * Computes the boundaries splitting string IDs into ranges of equal width over their leading four hex digits.
+         *
+         * @param count the number of ranges
+         * @return the {@code count - 1} four-digit lowercase hex prefixes at which the ranges after the first start
+         */
+        static List<String> hexPrefixes(int count) {
+            List<String> prefixes = new ArrayList<>(count - 1);
+            for (int i = 1; i < count; i++) {
+                prefixes.add(String.format("%04x", i * 0x10000L / count));
+            }
+            return prefixes;
+        }
+
+        /**
+         * Tells whether the range excludes some IDs.
+         *
+         * @return true unless both bounds are open
+         */
+        boolean isBounded() {
+            return lower != null || upper != null;
+        }
+
+        /**
+         * Builds the criteria restricting a field to the range.
+         *
+         * @param field the field holding the customer ID
+         * @return the range criteria
+         */
+        Criteria criteria(String field) {
+            Criteria criteria = Criteria.where(field);
+            if (lower != null) {
+                criteria.gte(lower);
+            }
+            if (upper != null) {
+                criteria.lt(upper);
+            }
+            return criteria;
+        }
+    }
+}
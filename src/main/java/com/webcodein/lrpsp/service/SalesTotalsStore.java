@@ -0,0 +1,225 @@
+package com.webcodein.lrpsp.service;
+
+import com.webcodein.lrpsp.model.CustomerSalesTotal;
+import com.webcodein.lrpsp.model.Order;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Maintains materialized per-customer sales totals.
+ * <p>
+ * Totals live in the {@link CustomerSalesTotal} collection, which is incremented atomically with
+ * {@code $inc} for every saved order (batched per customer when orders are saved in bulk), and are
+ * mirrored in an in-memory striped accumulator ({@link DoubleAdder}/{@link LongAdder} per customer)
+ * for lock-free local reads.
+ * {@link #rebuild()} recomputes the collection from the order collection to repair drift, and fills in
+ * the discounts of totals written before discounts were tracked.
+ */
+@Service
+public class SalesTotalsStore implements OrderWriteListener {
+
+    private static final Logger log = LoggerFactory.getLogger(SalesTotalsStore.class);
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+    private final Map<String, Totals> totals = new ConcurrentHashMap<>(); // In-memory mirror keyed by customer ID
+    private volatile boolean loaded; // True once the in-memory mirror reflects the collection
+
+    /**
+     * Constructor-based injection of ReactiveMongoTemplate.
+     *
+     * @param reactiveMongoTemplate the reactive MongoDB template
+     */
+    public SalesTotalsStore(ReactiveMongoTemplate reactiveMongoTemplate) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+    }
+
+    /**
+     * Loads the in-memory mirror once the application is ready.
+     * <p>
+     * When the totals collection is still empty but orders exist (e.g. right after seeding),
+     * the totals are rebuilt first. Runs in the background and never blocks startup.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        reactiveMongoTemplate.count(new Query(), CustomerSalesTotal.class)
+                .zipWith(reactiveMongoTemplate.count(new Query(), Order.class))
+                .flatMap(counts -> counts.getT1() == 0 && counts.getT2() > 0 ? rebuild() : reload())
+                .subscribe(
+                        count -> log.info("Loaded materialized sales totals for {} customers", count),
+                        error -> log.warn("Could not load materialized sales totals", error));
+    }
+
+    /**
+     * Adds written orders to their customers' totals.
+     *
+     * @param orders the written orders
+     * @return Mono completing once the totals are updated
+     */
+    @Override
+    public Mono<Void> ordersWritten(List<Order> orders) {
+        return recordAll(orders);
+    }
+
+    /**
+     * Adds saved orders to their customers' totals.
+     * <p>
+     * Orders are first summed per customer, then every affected totals document is updated with one
+     * {@code $inc} upsert in a single unordered bulk write. The in-memory mirror is only updated after
+     * the write succeeded. Orders without a customer ID are ignored.
+     *
+     * @param orders the saved orders
+     * @return Mono completing once the totals are updated
+     */
+    public Mono<Void> recordAll(List<Order> orders) {
+        // Sum the orders per customer: [0] = total, [1] = order count, [2] = discount
+        Map<String, double[]> deltas = new HashMap<>();
+        for (Order order : orders) {
+            if (order.getCustomerId() == null) {
+                continue;
+            }
+            double[] delta = deltas.computeIfAbsent(order.getCustomerId(), id -> new double[3]);
+            delta[0] += order.getTotal() != null ? order.getTotal() : 0d;
+            delta[1] += 1;
+            delta[2] += order.getDiscount() != null ? order.getDiscount() : 0d;
+        }
+        if (deltas.isEmpty()) {
+            return Mono.empty();
+        }
+
+        ReactiveBulkOperations bulk = reactiveMongoTemplate.bulkOps(BulkMode.UNORDERED, CustomerSalesTotal.class);
+        deltas.forEach((customerId, delta) -> bulk.upsert(
+                Query.query(Criteria.where("customerId").is(customerId)),
+                new Update().inc("total", delta[0]).inc("discount", delta[2]).inc("orderCount", (long) delta[1])));
+
+        return bulk.execute()
+                .doOnSuccess(result -> deltas.forEach(
+                        (customerId, delta) -> accumulate(customerId, delta[0], delta[2], (long) delta[1])))
+                .then();
+    }
+
+    /**
+     * Retrieves a customer's totals, from memory once loaded and from the collection otherwise.
+     *
+     * @param customerId the ID of the customer
+     * @return Mono emitting the customer's totals, or empty if the customer has no orders
+     */
+    public Mono<CustomerSalesTotal> findTotal(String customerId) {
+        if (!loaded) {
+            return reactiveMongoTemplate.findById(customerId, CustomerSalesTotal.class);
+        }
+        return Mono.justOrEmpty(totals.get(customerId))
+                .map(value -> value.snapshot(customerId));
+    }
+
+    /**
+     * Recomputes the totals collection from the order collection and reloads the in-memory mirror.
+     * <p>
+     * The collection is replaced atomically by an aggregation ending in {@code $out}. Orders saved
+     * while the rebuild runs may be counted twice or not at all; run it during quiet periods.
+     *
+     * @return Mono emitting the number of customers with totals after the rebuild
+     */
+    public Mono<Long> rebuild() {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("customerId").ne(null)),
+                Aggregation.group("customerId")
+                        .sum("total").as("total")
+                        .sum("discount").as("discount")
+                        .count().as("orderCount"),
+                Aggregation.out(reactiveMongoTemplate.getCollectionName(CustomerSalesTotal.class))
+        ).withOptions(AggregationOptions.builder().allowDiskUse(true).skipOutput().build());
+
+        return reactiveMongoTemplate.aggregate(aggregation, reactiveMongoTemplate.getCollectionName(Order.class), Document.class)
+                .then(reload());
+    }
+
+    /**
+     * Replaces the in-memory mirror with the current content of the totals collection.
+     *
+     * @return Mono emitting the number of customers loaded
+     */
+    private Mono<Long> reload() {
+        return reactiveMongoTemplate.findAll(CustomerSalesTotal.class)
+                .collectMap(CustomerSalesTotal::getCustomerId, Totals::of)
+                .map(loadedTotals -> {
+                    totals.clear();
+                    totals.putAll(loadedTotals);
+                    loaded = true;
+                    return (long) loadedTotals.size();
+                });
+    }
+
+    /**
+     * Adds the given amounts to a customer's in-memory totals.
+     *
+     * @param customerId the ID of the customer
+     * @param total      the order total to add
+     * @param discount   the order discount to add
+     * @param orderCount the number of orders to add
+     */
+    private void accumulate(String customerId, double total, double discount, long orderCount) {
+        Totals value = totals.computeIfAbsent(customerId, id -> new Totals());
+        value.total.add(total);
+        value.discount.add(discount);
+        value.orderCount.add(orderCount);
+    }
+
+    /**
+     * Striped in-memory totals of a single customer.
+     */
+    private static final class Totals {
+
+        private final DoubleAdder total = new DoubleAdder();
+        private final DoubleAdder discount = new DoubleAdder();
+        private final LongAdder orderCount = new LongAdder();
+
+        /**
+         * Creates in-memory totals initialized from a stored document.
+         *
+         * @param stored the stored totals
+         * @return the in-memory totals
+         */
+        private static Totals of(CustomerSalesTotal stored) {
+            Totals value = new Totals();
+            value.total.add(stored.getTotal());
+            value.discount.add(stored.getDiscount());
+            value.orderCount.add(stored.getOrderCount());
+            return value;
+        }
+
+        /**
+         * Captures the current totals as a {@link CustomerSalesTotal}.
+         *
+         * @param customerId the ID of the customer
+         * @return the captured totals
+         */
+        private CustomerSalesTotal snapshot(String customerId) {
+            CustomerSalesTotal snapshot = new CustomerSalesTotal();
+            snapshot.setCustomerId(customerId);
+            snapshot.setTotal(total.sum());
+            snapshot.setDiscount(discount.sum());
+            snapshot.setOrderCount(orderCount.sum());
+            return snapshot;
+        }
+    }
+}
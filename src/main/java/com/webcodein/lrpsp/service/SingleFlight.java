@@ -0,0 +1,164 @@
+package com.webcodein.lrpsp.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.util.context.ContextView;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces identical concurrent requests into a single execution.
+ * <p>
+ * The first caller for a key starts the work; callers arriving with the same key while it is in
+ * flight subscribe to the same execution instead of starting their own. A caller that cancels only
+ * detaches itself; the execution is cancelled once every caller has cancelled. Optionally, a
+ * completed result is served for a short time-to-live afterwards, so bursts arriving just after
+ * completion are coalesced as well.
+ * <p>
+ * A caller may carry an {@link Admission} in its subscriber context under {@link #ADMISSION}. It is
+ * applied to the executions that caller starts only, so callers joining an execution in flight are
+ * never subject to it.
+ */
+@Service
+public class SingleFlight {
+
+    /**
+     * Context key of the {@link Admission} guarding the executions started by a caller.
+     */
+    public static final String ADMISSION = SingleFlight.class.getName() + ".admission";
+
+    /**
+     * Admission control applied to new executions, e.g. a concurrency limit held while an execution runs.
+     */
+    public interface Admission {
+
+        /**
+         * Guards an execution about to be shared.
+         *
+         * @param execution the execution
+         * @param <T>       the result type
+         * @return the guarded execution, which may fail instead of running
+         */
+        <T> Mono<T> guard(Mono<T> execution);
+    }
+
+    private final Map<Object, Mono<?>> inFlight = new ConcurrentHashMap<>(); // Shared executions by key
+    private final Cache<Object, Object> recentResults; // Completed results by key, or null when disabled
+
+    private final Counter executed;
+    private final Counter joined;
+    private final Counter served;
+
+    /**
+     * Constructor-based injection of the meter registry and the result cache settings.
+     *
+     * @param meterRegistry the registry receiving the coalescing metrics
+     * @param resultTtl     how long a completed result is served to new callers; zero disables result caching
+     * @param maximumSize   the maximum number of completed results kept
+     */
+    public SingleFlight(MeterRegistry meterRegistry,
+                        @Value("${single-flight.result-ttl:0s}") Duration resultTtl,
+                        @Value("${single-flight.maximum-size:1000}") long maximumSize) {
+        this.recentResults = resultTtl.isZero() ? null : Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(resultTtl)
+                .build();
+
+        this.executed = requests(meterRegistry, "executed", "Requests that started their own execution");
+        this.joined = requests(meterRegistry, "joined", "Requests that joined an execution in flight");
+        this.served = requests(meterRegistry, "cached", "Requests served a recently completed result");
+    }
+
+    /**
+     * Runs the work for a key, or shares the execution already in flight for that key.
+     *
+     * @param key    identifies identical requests, e.g. the endpoint and its parameters
+     * @param loader supplies the work; only called by the caller starting an execution
+     * @param <T>    the result type
+     * @return Mono emitting the shared result
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> execute(Object key, Supplier<Mono<T>> loader) {
+        return Mono.deferContextual(context -> {
+            Object recent = recentResults != null ? recentResults.getIfPresent(key) : null;
+            if (recent != null) {
+                served.increment();
+                return Mono.just((T) recent);
+            }
+            AtomicReference<Mono<?>> started = new AtomicReference<>();
+            Mono<?> flight = inFlight.computeIfAbsent(key, k -> {
+                Mono<T> execution = share(k, guard(context, loader.get()));
+                started.set(execution);
+                return execution;
+            });
+            (started.get() == flight ? executed : joined).increment();
+            return (Mono<T>) flight;
+        });
+    }
+
+    /**
+     * Turns a single execution into one that can be subscribed to by many callers.
+     * <p>
+     * The execution is subscribed once, when the first caller subscribes, and is cancelled when the
+     * last caller cancels. It removes itself from the in-flight registry once it terminates.
+     *
+     * @param key       the key the execution is registered under
+     * @param execution the work to share
+     * @param <T>       the result type
+     * @return the shared execution
+     */
+    private <T> Mono<T> share(Object key, Mono<T> execution) {
+        AtomicReference<Mono<T>> self = new AtomicReference<>();
+        Mono<T> shared = execution
+                .doOnNext(result -> {
+                    if (recentResults != null) {
+                        recentResults.put(key, result);
+                    }
+                })
+                // Only remove this execution, not a newer one registered under the same key
+                .doFinally(signal -> inFlight.remove(key, self.get()))
+                .flux()
+                .share() // Reference-counted: the upstream is cancelled when the last caller cancels
+                .singleOrEmpty();
+        self.set(shared);
+        return shared;
+    }
+
+    /**
+     * Applies the admission of the caller starting an execution, if it carries one.
+     *
+     * @param context   the subscriber context of the caller
+     * @param execution the execution to guard
+     * @param <T>       the result type
+     * @return the guarded execution, or the execution itself without admission
+     */
+    private static <T> Mono<T> guard(ContextView context, Mono<T> execution) {
+        return context.<Admission>getOrEmpty(ADMISSION)
+                .map(admission -> admission.guard(execution))
+                .orElse(execution);
+    }
+
+    /**
+     * Registers the counter of coalesced requests with the given outcome.
+     *
+     * @param meterRegistry the registry receiving the counter
+     * @param outcome       the outcome tag value
+     * @param description   the counter description
+     * @return the registered counter
+     */
+    private static Counter requests(MeterRegistry meterRegistry, String outcome, String description) {
+        return Counter.builder("single_flight.requests")
+                .description(description)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,28 @@
+package com.webcodein.lrpsp.service;
+
+/**
+ * Selects where the sales summary figures are read from.
+ */
+public enum SummarySource {
+
+    /**
+     * Aggregates the order collection on every request.
+     */
+    AGGREGATE,
+
+    /**
+     * Reads the materialized per-customer totals maintained on order creation.
+     */
+    MATERIALIZED,
+
+    /**
+     * Aggregates the order collection like {@link #AGGREGATE}, split into customer ID ranges that are
+     * aggregated concurrently.
+     */
+    PARALLEL,
+
+    /**
+     * Replays the orders through the application and sums them in-process with a {@link SalesAccumulator}.
+     */
+    REPLAY
+}
@@ -0,0 +1,62 @@
+package com.webcodein.lrpsp.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Keeps the {@code k} greatest items of a stream in a bounded min-heap.
+ * <p>
+ * The smallest kept item sits at the root, so each offered item is compared with it once and only
+ * replaces it when greater. Memory stays O(k) whatever the stream length, and each offer costs O(log k).
+ * Not thread-safe; fill one instance per subscription, e.g. with {@code Flux.collect}.
+ *
+ * @param <T> the item type
+ */
+public final class TopK<T> {
+
+    private final int k;
+    private final Comparator<? super T> order;
+    private final PriorityQueue<T> heap;
+
+    /**
+     * Creates an empty selection.
+     *
+     * @param k     the number of items to keep
+     * @param order the ascending order of the items; the greatest items are kept
+     */
+    public TopK(int k, Comparator<? super T> order) {
+        if (k < 1) {
+            throw new IllegalArgumentException("k must be positive");
+        }
+        this.k = k;
+        this.order = order;
+        this.heap = new PriorityQueue<>(k, order);
+    }
+
+    /**
+     * Offers an item, kept if it is among the {@code k} greatest seen so far.
+     *
+     * @param item the item
+     */
+    public void offer(T item) {
+        if (heap.size() < k) {
+            heap.add(item);
+        } else if (order.compare(item, heap.peek()) > 0) {
+            heap.poll();
+            heap.add(item);
+        }
+    }
+
+    /**
+     * Returns the kept items, greatest first.
+     *
+     * @return a new list of at most {@code k} items
+     */
+    public List<T> toList() {
+        List<T> items = new ArrayList<>(heap);
+        items.sort(order.reversed());
+        return items;
+    }
+}
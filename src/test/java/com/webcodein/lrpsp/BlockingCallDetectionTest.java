@@ -0,0 +1,40 @@
+package com.webcodein.lrpsp;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+/**
+ * Checks that BlockHound is active when the build runs with the {@code blockhound} profile,
+ * so that any blocking call on a Reactor thread fails the test suite.
+ */
+@EnabledIfSystemProperty(named = "blockhound", matches = "true")
+class BlockingCallDetectionTest {
+
+    @Test
+    void testBlockingCallOnReactorThreadIsRejected() {
+        Mono<Long> blocking = Mono.delay(Duration.ofMillis(1))
+                .doOnNext(tick -> {
+                    try {
+                        Thread.sleep(10);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+
+        StepVerifier.create(blocking)
+                .expectErrorMatches(error -> error.getClass().getSimpleName().equals("BlockingOperationError"))
+                .verify();
+    }
+
+    @Test
+    void testNonBlockingPipelineIsAccepted() {
+        StepVerifier.create(Mono.just(21).publishOn(Schedulers.parallel()).map(x -> x * 2))
+                .expectNext(42)
+                .verifyComplete();
+    }
+}
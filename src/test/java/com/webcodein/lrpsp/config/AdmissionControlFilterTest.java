@@ -0,0 +1,92 @@
+package com.webcodein.lrpsp.config;
+
+import com.webcodein.lrpsp.service.SingleFlight;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.reactive.result.method.RequestMappingInfo;
+import org.springframework.web.reactive.result.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class AdmissionControlFilterTest {
+
+    private static final int SUMMARY_CONCURRENCY = 2;
+
+    private final AdmissionControlFilter filter = newFilter();
+    private final SingleFlight singleFlight = new SingleFlight(new SimpleMeterRegistry(), Duration.ZERO, 100);
+    private final Sinks.One<Integer> result = Sinks.one();
+    private final AtomicInteger executions = new AtomicInteger();
+
+    @Test
+    void testIdenticalConcurrentSummariesAreNotRejected() throws Exception {
+        List<MockServerWebExchange> exchanges = summaries(List.of("AGGREGATE"), 20);
+
+        assertEquals(1, executions.get());
+        for (MockServerWebExchange exchange : exchanges) {
+            assertNull(exchange.getResponse().getStatusCode());
+        }
+    }
+
+    @Test
+    void testDistinctSummariesOverTheLimitAreRejected() throws Exception {
+        List<MockServerWebExchange> exchanges = summaries(List.of("AGGREGATE", "MATERIALIZED", "PARALLEL"), 2);
+
+        assertEquals(SUMMARY_CONCURRENCY, executions.get());
+        assertNull(exchanges.get(0).getResponse().getStatusCode());
+        assertNull(exchanges.get(2).getResponse().getStatusCode());
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exchanges.get(4).getResponse().getStatusCode());
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exchanges.get(5).getResponse().getStatusCode());
+    }
+
+    private List<MockServerWebExchange> summaries(List<String> sources, int perSource) throws Exception {
+        List<MockServerWebExchange> exchanges = new ArrayList<>();
+        List<CompletableFuture<Void>> responses = new ArrayList<>();
+        for (String source : sources) {
+            for (int i = 0; i < perSource; i++) {
+                MockServerWebExchange exchange = MockServerWebExchange.from(
+                        MockServerHttpRequest.get("/sales/summary").queryParam("source", source));
+                WebFilterChain chain = filtered -> singleFlight.execute(source,
+                        () -> result.asMono().doOnSubscribe(subscription -> executions.incrementAndGet())).then();
+                exchanges.add(exchange);
+                responses.add(filter.filter(exchange, chain).toFuture());
+            }
+        }
+        result.tryEmitValue(1);
+        CompletableFuture.allOf(responses.toArray(CompletableFuture[]::new)).get();
+        return exchanges;
+    }
+
+    private static AdmissionControlFilter newFilter() {
+        RequestMappingHandlerMapping handlerMapping = new RequestMappingHandlerMapping();
+        try {
+            handlerMapping.registerMapping(RequestMappingInfo.paths("/sales/summary").build(),
+                    new Object(), Object.class.getMethod("toString"));
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+        ObjectProvider<RequestMappingHandlerMapping> provider = new ObjectProvider<>() {
+            @Override
+            public RequestMappingHandlerMapping getObject() {
+                return handlerMapping;
+            }
+        };
+        return new AdmissionControlFilter(new SimpleMeterRegistry(), provider,
+                true, Duration.ofSeconds(1),
+                SUMMARY_CONCURRENCY, 1000, Duration.ofSeconds(2),
+                8, 20,
+                512, 10000, Duration.ofMillis(250));
+    }
+}
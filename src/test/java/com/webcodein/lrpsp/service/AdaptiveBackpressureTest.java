@@ -0,0 +1,51 @@
+package com.webcodein.lrpsp.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveBackpressureTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void testDisabledOperatorKeepsEveryItem() {
+        AdaptiveBackpressure backpressure = new AdaptiveBackpressure(meterRegistry, false, 4, 16, 64, 4);
+
+        assertEquals(10_000, Flux.range(0, 10_000).transform(backpressure.operator("test")).count().block());
+    }
+
+    @Test
+    void testFastConsumerReceivesEveryItem() {
+        AdaptiveBackpressure backpressure = new AdaptiveBackpressure(meterRegistry, true, 4, 16, 64, 4);
+
+        assertEquals(10_000, Flux.range(0, 10_000).transform(backpressure.operator("test")).count().block());
+        assertEquals(0, meterRegistry.get("backpressure.buffered").gauge().value());
+    }
+
+    @Test
+    void testSlowConsumerBoundsTheBuffer() {
+        AdaptiveBackpressure backpressure = new AdaptiveBackpressure(meterRegistry, true, 4, 16, 64, 4);
+
+        long received = Flux.range(0, 10_000)
+                .transform(backpressure.operator("test"))
+                .concatMap(item -> Mono.delay(Duration.ofMillis(1)).thenReturn(item), 1)
+                .take(Duration.ofMillis(500))
+                .count()
+                .block();
+
+        double delivered = meterRegistry.get("backpressure.items").tag("outcome", "delivered").counter().count();
+        double sampledOut = meterRegistry.get("backpressure.items").tag("outcome", "sampled_out").counter().count();
+        double dropped = meterRegistry.get("backpressure.items").tag("outcome", "dropped").counter().count();
+        assertTrue(received < 10_000);
+        assertTrue(sampledOut > 0);
+        assertTrue(dropped > 0);
+        assertEquals(10_000, delivered + sampledOut + dropped + meterRegistry.get("backpressure.buffered").gauge().value(), 64);
+    }
+}
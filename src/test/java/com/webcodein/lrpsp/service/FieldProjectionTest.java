@@ -0,0 +1,37 @@
+package com.webcodein.lrpsp.service;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FieldProjectionTest {
+
+    private static final Set<String> FIELDS = Set.of("name", "job");
+
+    @Test
+    void testNoFieldsKeepsFullDocument() {
+        Query query = FieldProjection.apply(new Query(), null, FIELDS);
+
+        assertTrue(query.getFieldsObject().isEmpty());
+    }
+
+    @Test
+    void testRequestedFieldsAreIncluded() {
+        Query query = FieldProjection.apply(new Query(), "name, job", FIELDS);
+
+        assertEquals(new Document("name", 1).append("job", 1), query.getFieldsObject());
+    }
+
+    @Test
+    void testUnknownFieldIsRejected() {
+        assertThrows(ResponseStatusException.class,
+                () -> FieldProjection.apply(new Query(), "name,password", FIELDS));
+    }
+}
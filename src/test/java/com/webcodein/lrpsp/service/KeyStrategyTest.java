@@ -0,0 +1,72 @@
+package com.webcodein.lrpsp.service;
+
+import org.bson.BsonBinary;
+import org.bson.BsonObjectId;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KeyStrategyTest {
+
+    @Test
+    void testKeysRoundTripThroughTheirStoredForm() {
+        for (KeyStrategy.Type type : KeyStrategy.Type.values()) {
+            KeyStrategy keyStrategy = new KeyStrategy(type);
+            String key = keyStrategy.nextId();
+
+            assertEquals(key, keyStrategy.toExternal(keyStrategy.toStored(key)), type.name());
+        }
+    }
+
+    @Test
+    void testKeysAreStoredCompactly() {
+        assertInstanceOf(String.class, new KeyStrategy(KeyStrategy.Type.STRING).toStored(UUID.randomUUID().toString()));
+        assertInstanceOf(UUID.class, new KeyStrategy(KeyStrategy.Type.UUID).toStored(UUID.randomUUID().toString()));
+        assertInstanceOf(ObjectId.class, new KeyStrategy(KeyStrategy.Type.OBJECT_ID).toStored(new ObjectId().toHexString()));
+    }
+
+    @Test
+    void testKeysOfAnotherStrategyAreStoredUnchanged() {
+        String legacyKey = UUID.randomUUID().toString();
+
+        assertEquals(legacyKey, new KeyStrategy(KeyStrategy.Type.OBJECT_ID).toStored(legacyKey));
+        assertEquals("customer-1", new KeyStrategy(KeyStrategy.Type.UUID).toStored("customer-1"));
+    }
+
+    @Test
+    void testRawBsonKeysAreRead() {
+        KeyStrategy keyStrategy = new KeyStrategy(KeyStrategy.Type.STRING);
+        UUID uuid = UUID.randomUUID();
+        ObjectId objectId = new ObjectId();
+
+        assertEquals(uuid.toString(), keyStrategy.toExternal(new BsonBinary(uuid)));
+        assertEquals(objectId.toHexString(), keyStrategy.toExternal(new BsonObjectId(objectId)));
+    }
+
+    @Test
+    void testUuidKeysAreVersion7AndTimeOrdered() {
+        UUID earlier = KeyStrategy.uuidV7(1_700_000_000_000L);
+        UUID later = KeyStrategy.uuidV7(1_700_000_000_001L);
+
+        assertEquals(7, earlier.version());
+        assertEquals(2, earlier.variant());
+        assertTrue(earlier.toString().compareTo(later.toString()) < 0);
+    }
+
+    @Test
+    void testBoundariesSplitTheKeysBetweenFirstAndLast() {
+        KeyStrategy keyStrategy = new KeyStrategy(KeyStrategy.Type.UUID);
+        String first = new UUID(0x1000L << 16, 0).toString();
+        String last = new UUID(0x1400L << 16, 0).toString();
+
+        List<Object> boundaries = keyStrategy.boundaries(first, last, 4);
+
+        assertEquals(List.of(new UUID(0x1100L << 16, 0), new UUID(0x1200L << 16, 0), new UUID(0x1300L << 16, 0)), boundaries);
+    }
+}
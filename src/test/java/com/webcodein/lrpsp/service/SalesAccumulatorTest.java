@@ -0,0 +1,66 @@
+package com.webcodein.lrpsp.service;
+
+import com.webcodein.lrpsp.model.Order;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SalesAccumulatorTest {
+
+    @Test
+    void testOrdersAreSummedPerCustomer() {
+        SalesAccumulator accumulator = new SalesAccumulator()
+                .add(new Order("a", 10d, 0d))
+                .add(new Order("b", 5d, 0d))
+                .add(new Order("a", 2.5, 0d));
+
+        assertEquals(12.5, accumulator.total("a"));
+        assertEquals(2, accumulator.orderCount("a"));
+        assertEquals(5d, accumulator.total("b"));
+        assertEquals(2, accumulator.size());
+    }
+
+    @Test
+    void testDiscountsAreSummedPerCustomer() {
+        SalesAccumulator accumulator = new SalesAccumulator()
+                .add(new Order("a", 10d, 1d))
+                .add(new Order("a", 20d, null))
+                .add(new Order("a", 30d, 2.5));
+
+        assertEquals(60d, accumulator.total("a"));
+        assertEquals(3.5, accumulator.discount("a"));
+        assertEquals(0d, accumulator.discount("b"));
+    }
+
+    @Test
+    void testUnknownCustomerHasNoSales() {
+        SalesAccumulator accumulator = new SalesAccumulator().add(new Order("a", 10d, 0d));
+
+        assertEquals(0d, accumulator.total("b"));
+        assertEquals(0, accumulator.orderCount("b"));
+    }
+
+    @Test
+    void testOrdersWithoutCustomerOrTotalAreHandled() {
+        SalesAccumulator accumulator = new SalesAccumulator()
+                .add(new Order(null, 10d, 0d))
+                .add(new Order("a", null, 0d));
+
+        assertEquals(1, accumulator.size());
+        assertEquals(0d, accumulator.total("a"));
+        assertEquals(1, accumulator.orderCount("a"));
+    }
+
+    @Test
+    void testAccumulatorGrowsBeyondExpectedCustomers() {
+        SalesAccumulator accumulator = new SalesAccumulator(16);
+        for (int i = 0; i < 10_000; i++) {
+            accumulator.add("customer_" + (i % 1_000), 1d);
+        }
+
+        assertEquals(1_000, accumulator.size());
+        for (int i = 0; i < 1_000; i++) {
+            assertEquals(10d, accumulator.total("customer_" + i));
+        }
+    }
+}
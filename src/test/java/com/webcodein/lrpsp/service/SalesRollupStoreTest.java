@@ -0,0 +1,51 @@
+package com.webcodein.lrpsp.service;
+
+import com.webcodein.lrpsp.model.JobSalesRollup;
+import com.webcodein.lrpsp.model.Order;
+import com.webcodein.lrpsp.model.RollupGranularity;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SalesRollupStoreTest {
+
+    private static final Instant WRITTEN_AT = Instant.parse("2024-05-01T10:42:17Z");
+
+    @Test
+    void testOrdersAreSummedPerJobAndBucket() {
+        Map<String, JobSalesRollup> deltas = SalesRollupStore.deltas(
+                List.of(new Order("a", 10d, 1d), new Order("b", 5d, 0.5), new Order("c", 2d, 0d)),
+                Map.of("a", "Job_1", "b", "Job_1", "c", "Job_2"),
+                WRITTEN_AT);
+
+        assertEquals(6, deltas.size()); // Two jobs in three granularities
+        JobSalesRollup hour = deltas.get(JobSalesRollup.idOf(RollupGranularity.HOUR, "Job_1", Instant.parse("2024-05-01T10:00:00Z")));
+        assertEquals(15d, hour.getTotal());
+        assertEquals(1.5, hour.getDiscount());
+        assertEquals(2, hour.getOrderCount());
+        JobSalesRollup day = deltas.get(JobSalesRollup.idOf(RollupGranularity.DAY, "Job_2", Instant.parse("2024-05-01T00:00:00Z")));
+        assertEquals(2d, day.getTotal());
+        assertEquals(1, day.getOrderCount());
+    }
+
+    @Test
+    void testOrdersOfUnknownCustomersAreIgnored() {
+        Map<String, JobSalesRollup> deltas = SalesRollupStore.deltas(
+                List.of(new Order(null, 10d, 0d), new Order("unknown", 5d, 0d)),
+                Map.of("a", "Job_1"),
+                WRITTEN_AT);
+
+        assertEquals(0, deltas.size());
+    }
+
+    @Test
+    void testBucketsAreAlignedAndCounted() {
+        assertEquals(Instant.parse("2024-05-01T10:42:00Z"), RollupGranularity.MINUTE.bucketOf(WRITTEN_AT));
+        assertEquals(24, RollupGranularity.HOUR.bucketsBetween(Instant.parse("2024-05-01T00:00:00Z"), Instant.parse("2024-05-02T00:00:00Z")));
+        assertEquals(2, RollupGranularity.DAY.bucketsBetween(WRITTEN_AT, Instant.parse("2024-05-02T00:00:01Z")));
+    }
+}
@@ -0,0 +1,45 @@
+package com.webcodein.lrpsp.service;
+
+import com.webcodein.lrpsp.model.ApproximateSalesSummary;
+import com.webcodein.lrpsp.model.Order;
+import com.webcodein.lrpsp.model.SalesSketchState;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SalesSketchStoreTest {
+
+    @Test
+    void testRestartKeepsOneDocumentCoveringEveryRun() {
+        SalesSketches single = new SalesSketches(5);
+        SalesSketches firstRun = new SalesSketches(5);
+        SalesSketches replacedHost = new SalesSketches(5);
+        for (int i = 0; i < 1000; i++) {
+            Order order = new Order("customer-" + i % 100, (double) i, 0d);
+            single.add(order);
+            (i % 2 == 0 ? firstRun : replacedHost).add(order);
+        }
+        SalesSketchState stored = firstRun.toState("host-1", Instant.now());
+        SalesSketchState retired = replacedHost.toState("host-0", Instant.now().minusSeconds(3600));
+
+        // The restarted instance reloads its own document, then folds in the retired one
+        SalesSketches restarted = SalesSketchStore.merge(List.of(stored), 5);
+        restarted.merge(SalesSketchStore.merge(List.of(retired), 5));
+        SalesSketchState written = restarted.toState("host-1", Instant.now());
+
+        ApproximateSalesSummary expected = single.summarize(List.of(0.5), 5);
+        ApproximateSalesSummary actual = SalesSketchStore.merge(List.of(written), 5).summarize(List.of(0.5), 5);
+        assertEquals("host-1", written.getInstanceId());
+        assertEquals(1000, actual.getOrderCount());
+        assertEquals(expected.getDistinctCustomers(), actual.getDistinctCustomers());
+        assertEquals(expected.getOrderTotalQuantiles(), actual.getOrderTotalQuantiles());
+    }
+
+    @Test
+    void testNoStoredStatesMergeToEmptySketches() {
+        assertEquals(0, SalesSketchStore.merge(List.of(), 5).summarize(List.of(0.5), 5).getOrderCount());
+    }
+}
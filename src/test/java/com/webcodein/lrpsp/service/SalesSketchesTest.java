@@ -0,0 +1,78 @@
+package com.webcodein.lrpsp.service;
+
+import com.webcodein.lrpsp.model.ApproximateSalesSummary;
+import com.webcodein.lrpsp.model.Order;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SalesSketchesTest {
+
+    @Test
+    void testDistinctCustomersAreEstimatedWithinTwoPercent() {
+        HyperLogLog sketch = new HyperLogLog(14);
+        for (int i = 0; i < 100_000; i++) {
+            sketch.add(SalesSketches.hash("customer-" + i));
+            sketch.add(SalesSketches.hash("customer-" + i)); // Duplicates are not counted
+        }
+
+        assertEquals(100_000, sketch.estimate(), 2_000);
+    }
+
+    @Test
+    void testQuantilesAreWithinTheRelativeAccuracy() {
+        QuantileSketch sketch = new QuantileSketch(0.01, 0.01, 1e9);
+        for (int total = 1; total <= 1000; total++) {
+            sketch.add(total);
+        }
+
+        assertEquals(500, sketch.quantile(0.5), 5);
+        assertEquals(990, sketch.quantile(0.99), 9.9);
+        assertEquals(1000, sketch.quantile(1), 10);
+    }
+
+    @Test
+    void testHeavyHittersAreFoundAmongManyCustomers() {
+        SalesSketches sketches = new SalesSketches(10);
+        Random random = new Random(42);
+        for (int i = 0; i < 50_000; i++) {
+            sketches.add(new Order("customer-" + random.nextInt(20_000), 100d, 0d));
+            if (i % 10 == 0) {
+                sketches.add(new Order("big-" + (i % 30 == 0 ? 1 : 2), 100d, 0d));
+            }
+        }
+
+        ApproximateSalesSummary summary = sketches.summarize(List.of(0.5), 2);
+
+        assertEquals(List.of("big-2", "big-1"), List.copyOf(summary.getHeavyHitters().keySet()));
+        assertTrue(summary.getHeavyHitters().get("big-1") >= 1667);
+    }
+
+    @Test
+    void testMergedSketchesMatchASingleSketch() {
+        SalesSketches single = new SalesSketches(5);
+        SalesSketches left = new SalesSketches(5);
+        SalesSketches right = new SalesSketches(5);
+        for (int i = 0; i < 1000; i++) {
+            Order order = new Order("customer-" + i % 100, (double) i, 0d);
+            single.add(order);
+            (i % 2 == 0 ? left : right).add(order);
+        }
+        // Sketches are merged after a round trip through their stored form, as across instances
+        SalesSketches merged = SalesSketches.fromState(left.toState("left", Instant.now()), 5);
+        merged.merge(SalesSketches.fromState(right.toState("right", Instant.now()), 5));
+
+        ApproximateSalesSummary expected = single.summarize(List.of(0.5, 0.99), 5);
+        ApproximateSalesSummary actual = merged.summarize(List.of(0.5, 0.99), 5);
+
+        assertEquals(1000, actual.getOrderCount());
+        assertEquals(expected.getDistinctCustomers(), actual.getDistinctCustomers());
+        assertEquals(expected.getOrderTotalQuantiles(), actual.getOrderTotalQuantiles());
+        assertEquals(expected.getHeavyHitters().values().stream().toList(), actual.getHeavyHitters().values().stream().toList());
+    }
+}
@@ -0,0 +1,73 @@
+package com.webcodein.lrpsp.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SingleFlightTest {
+
+    private final SingleFlight singleFlight = new SingleFlight(new SimpleMeterRegistry(), Duration.ZERO, 100);
+
+    @Test
+    void testConcurrentRequestsShareOneExecution() {
+        AtomicInteger executions = new AtomicInteger();
+        Mono<Integer> first = singleFlight.execute("key", () -> slowly(executions));
+        Mono<Integer> second = singleFlight.execute("key", () -> slowly(executions));
+
+        Tuple2<Integer, Integer> results = Mono.zip(first, second).block();
+
+        assertEquals(1, executions.get());
+        assertEquals(1, results.getT1());
+        assertEquals(1, results.getT2());
+    }
+
+    @Test
+    void testCompletedExecutionIsNotReused() {
+        AtomicInteger executions = new AtomicInteger();
+        singleFlight.execute("key", () -> Mono.fromSupplier(executions::incrementAndGet)).block();
+        singleFlight.execute("key", () -> Mono.fromSupplier(executions::incrementAndGet)).block();
+
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    void testCancellingOneCallerKeepsTheExecutionForOthers() throws Exception {
+        AtomicInteger cancellations = new AtomicInteger();
+        Disposable cancelled = singleFlight.execute("key",
+                () -> Mono.delay(Duration.ofMillis(200)).doOnCancel(cancellations::incrementAndGet).thenReturn(1))
+                .subscribe();
+        CompletableFuture<Integer> other = singleFlight.execute("key", () -> Mono.just(2)).toFuture();
+
+        cancelled.dispose();
+
+        assertEquals(1, other.get());
+        assertEquals(0, cancellations.get());
+    }
+
+    @Test
+    void testCancellingEveryCallerCancelsTheExecution() {
+        AtomicInteger cancellations = new AtomicInteger();
+        Disposable first = singleFlight.execute("key",
+                () -> Mono.delay(Duration.ofSeconds(5)).doOnCancel(cancellations::incrementAndGet).thenReturn(1))
+                .subscribe();
+        Disposable second = singleFlight.execute("key", () -> Mono.just(2)).subscribe();
+
+        first.dispose();
+        second.dispose();
+
+        assertEquals(1, cancellations.get());
+        assertEquals(3, singleFlight.execute("key", () -> Mono.just(3)).block());
+    }
+
+    private static Mono<Integer> slowly(AtomicInteger executions) {
+        return Mono.delay(Duration.ofMillis(100)).map(tick -> executions.incrementAndGet());
+    }
+}
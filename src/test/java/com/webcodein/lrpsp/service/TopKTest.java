@@ -0,0 +1,62 @@
+package com.webcodein.lrpsp.service;
+
+import com.webcodein.lrpsp.model.CustomerSalesSummary;
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TopKTest {
+
+    @Test
+    void testKeepsTheGreatestItemsGreatestFirst() {
+        TopK<Integer> top = new TopK<>(3, Comparator.naturalOrder());
+        IntStream.of(5, 1, 9, 3, 7, 2, 8).forEach(top::offer);
+
+        assertEquals(List.of(9, 8, 7), top.toList());
+    }
+
+    @Test
+    void testKeepsEveryItemOfAShortStream() {
+        TopK<Integer> top = new TopK<>(5, Comparator.naturalOrder());
+        IntStream.of(2, 4).forEach(top::offer);
+
+        assertEquals(List.of(4, 2), top.toList());
+    }
+
+    @Test
+    void testRankingBreaksTiesBySmallerCustomerId() {
+        TopK<CustomerSalesSummary> top = new TopK<>(2, SalesMetric.ORDERS.ranking());
+        top.offer(rank("c", 10, 4));
+        top.offer(rank("b", 30, 4));
+        top.offer(rank("a", 20, 4));
+        top.offer(rank("d", 99, 1));
+
+        assertEquals(List.of("a", "b"), top.toList().stream().map(CustomerSalesSummary::getCustomerId).toList());
+    }
+
+    @Test
+    void testRankingByTotal() {
+        TopK<CustomerSalesSummary> top = new TopK<>(1, SalesMetric.TOTAL.ranking());
+        top.offer(rank("a", 20, 4));
+        top.offer(rank("b", 30, 1));
+
+        assertEquals("b", top.toList().getFirst().getCustomerId());
+    }
+
+    @Test
+    void testRankingByNetRevenue() {
+        TopK<CustomerSalesSummary> top = new TopK<>(1, SalesMetric.NET.ranking());
+        top.offer(new CustomerSalesSummary("a", "A", 100, 50, 1));
+        top.offer(new CustomerSalesSummary("b", "B", 80, 0, 1));
+
+        assertEquals("b", top.toList().getFirst().getCustomerId());
+    }
+
+    private static CustomerSalesSummary rank(String customerId, double total, long orderCount) {
+        return new CustomerSalesSummary(customerId, null, total, 0, orderCount);
+    }
+}